@@ -0,0 +1,39 @@
+package com.spring.boot.config;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class AsyncConfig {
+
+	//상품 상세 화면의 영역(리뷰, 문의, 판매자 상품)을 동시에 조회하는 스레드풀
+	//각 작업이 DB 커넥션을 하나씩 쓰므로 커넥션 풀(기본 10개)보다 작게 잡는다
+	@Value("${product.detail.executor.core-size:4}")
+	private int coreSize;
+	@Value("${product.detail.executor.max-size:6}")
+	private int maxSize;
+	@Value("${product.detail.executor.queue-capacity:50}")
+	private int queueCapacity;
+
+	@Bean(name = "productDetailExecutor")
+	public ThreadPoolTaskExecutor productDetailExecutor() {
+
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(coreSize);
+		executor.setMaxPoolSize(maxSize);
+		executor.setQueueCapacity(queueCapacity);
+		executor.setThreadNamePrefix("product-detail-");
+
+		//큐가 가득 차면 바로 거절 -> 호출한 쪽에서 해당 영역을 빈 값으로 대체
+		executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+		executor.setWaitForTasksToCompleteOnShutdown(true);
+		executor.initialize();
+
+		return executor;
+	}
+
+}
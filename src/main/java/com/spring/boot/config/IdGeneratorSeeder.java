@@ -0,0 +1,59 @@
+package com.spring.boot.config;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import lombok.RequiredArgsConstructor;
+
+//주문내역(order_list), 포인트(point), 페이머니(pay) id 채번 테이블 초기값 설정
+//IDENTITY는 INSERT를 해야 id가 나와서 JDBC 배치가 안되므로 테이블 채번(ALLOCATION_SIZE개씩 미리 받아둠)으로 변경
+//기존 IDENTITY로 들어간 행과 겹치지 않도록 서버 시작시(요청 받기 전) 다음 값을 각 테이블의 MAX(id) 뒤로 맞춤
+@Component
+@RequiredArgsConstructor
+public class IdGeneratorSeeder {
+
+	public static final String TABLE = "id_generator";
+	public static final int ALLOCATION_SIZE = 50;
+
+	//채번 이름(@TableGenerator pkColumnValue) = 테이블 이름
+	private static final String[] SEQUENCES = { "order_list", "point", "pay" };
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	private final TransactionTemplate transactionTemplate;
+
+	@PostConstruct
+	public void seed() {
+
+		transactionTemplate.execute(status -> {
+			for (String sequence : SEQUENCES) {
+				seed(sequence);
+			}
+			return null;
+		});
+	}
+
+	//pooled 방식은 읽은 값 - (ALLOCATION_SIZE - 1) 부터 쓰므로 MAX(id) + ALLOCATION_SIZE 이상으로 설정
+	private void seed(String sequence) {
+
+		String nextValue = "(SELECT COALESCE(MAX(id), 0) + " + ALLOCATION_SIZE + " FROM " + sequence + ")";
+
+		int updated = entityManager.createNativeQuery("UPDATE " + TABLE + " SET next_val = GREATEST(next_val, "
+				+ nextValue + ") WHERE seq_name = :sequence")
+				.setParameter("sequence", sequence)
+				.executeUpdate();
+
+		if (updated == 0) {
+			entityManager.createNativeQuery("INSERT INTO " + TABLE + " (seq_name, next_val) SELECT :sequence, "
+					+ "COALESCE(MAX(id), 0) + " + ALLOCATION_SIZE + " FROM " + sequence)
+					.setParameter("sequence", sequence)
+					.executeUpdate();
+		}
+	}
+
+}
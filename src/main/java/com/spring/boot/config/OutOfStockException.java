@@ -0,0 +1,12 @@
+package com.spring.boot.config;
+
+//주문 수량보다 재고가 적을 때(동시에 주문이 들어와 먼저 팔린 경우 포함)
+public class OutOfStockException extends RuntimeException{
+
+	private static final long serialVersionUID = 1L;
+	
+	public OutOfStockException(String message) {
+		super(message);
+	}
+
+}
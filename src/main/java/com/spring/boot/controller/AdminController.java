@@ -2,6 +2,9 @@ package com.spring.boot.controller;
 
 import java.time.DateTimeException;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 
 import javax.validation.Valid;
 
@@ -21,14 +24,21 @@ import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
 
 import com.spring.boot.dto.AdminCreateForm;
+import com.spring.boot.dto.ConversionRateDTO;
 import com.spring.boot.dto.PageRequestDTO;
 import com.spring.boot.dto.PrincipalDetails;
 import com.spring.boot.model.SellerRequest;
 import com.spring.boot.model.SiteUser;
 import com.spring.boot.model.UserRole;
 import com.spring.boot.service.AdminService;
+import com.spring.boot.service.FlashSaleLedger;
+import com.spring.boot.service.ProductViewCounter;
+import com.spring.boot.service.RepeatBuyerStatistics;
+import com.spring.boot.service.SearchResultCache;
 import com.spring.boot.service.UserService;
 
 import lombok.RequiredArgsConstructor;
@@ -43,6 +53,10 @@ public class AdminController {
 	//오버로딩된 생성자로 의존성 주입(DI)
 	private final AdminService adminService;
 	private final UserService userService;
+	private final SearchResultCache searchResultCache;
+	private final RepeatBuyerStatistics repeatBuyerStatistics;
+	private final ProductViewCounter productViewCounter;
+	private final FlashSaleLedger flashSaleLedger;
 	
 	//검색 기능이 포함된 리스트
 	@RequestMapping("/userList")
@@ -246,6 +260,64 @@ public class AdminController {
 		
 	}
 	
+	//검색 결과 캐시 hit/miss 통계
+	@GetMapping("/searchCacheStats")
+	@ResponseBody
+	public Map<String, Object> searchCacheStats() {
+		
+		return searchResultCache.getStats();
+		
+	}
+	
+	//베스트 상품의 재구매 기준 횟수 변경(적용된 값 반환)
+	@PostMapping("/repeatBuyerThreshold")
+	@ResponseBody
+	public int repeatBuyerThreshold(@RequestParam("minPurchases") int minPurchases) {
+		
+		return repeatBuyerStatistics.setThreshold(minPurchases);
+		
+	}
+	
+	//조회수 상위 상품의 조회 대비 구매 전환율
+	@GetMapping("/conversionReport")
+	@ResponseBody
+	public List<ConversionRateDTO> conversionReport(@RequestParam(value = "size", defaultValue = "50") int size) {
+		
+		return productViewCounter.getConversionReport(Math.max(1, Math.min(size, 500)));
+		
+	}
+	
+	//타임딜 시작(minutes분 동안), 예약 가능한 수량 반환
+	@PostMapping("/flashSale/start")
+	@ResponseBody
+	public int startFlashSale(@RequestParam("productno") Long productno, @RequestParam("minutes") int minutes) {
+		
+		flashSaleLedger.start(productno, LocalDateTime.now().plusMinutes(Math.max(1, minutes)));
+		
+		return flashSaleLedger.getAvailable(productno);
+		
+	}
+	
+	//타임딜 종료
+	@PostMapping("/flashSale/stop")
+	@ResponseBody
+	public String stopFlashSale(@RequestParam("productno") Long productno) {
+		
+		flashSaleLedger.stop(productno);
+		
+		return "stopped";
+		
+	}
+	
+	//타임딜 예약 가능한 남은 수량(타임딜이 아니면 -1)
+	@GetMapping("/flashSale/{productno}")
+	@ResponseBody
+	public int flashSaleAvailable(@PathVariable("productno") Long productno) {
+		
+		return flashSaleLedger.getAvailable(productno);
+		
+	}
+	
 //	@PreAuthorize("isAuthenticated")
 //	@PutMapping("/deactivateOrReactivate/{userName}")
 //	@ResponseBody
@@ -1,6 +1,7 @@
 package com.spring.boot.controller;
 
 import java.util.List;
+import java.util.stream.Collectors;
 
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -11,14 +12,26 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.servlet.ModelAndView;
 import org.thymeleaf.spring5.SpringTemplateEngine;
 
+import com.spring.boot.dto.MainPageSnapshot;
 import com.spring.boot.dto.PageRequestDTO;
+import com.spring.boot.dto.PageResultDTO;
 import com.spring.boot.dto.PrincipalDetails;
-import com.spring.boot.model.Product;
+import com.spring.boot.dto.ProductCardDTO;
+import com.spring.boot.dto.ProductDTO;
+import com.spring.boot.dto.SuggestionDTO;
 import com.spring.boot.model.SiteUser;
+import com.spring.boot.service.CategoryStatistics;
+import com.spring.boot.service.MainPageHtmlCache;
+import com.spring.boot.service.MainPageSnapshotService;
 import com.spring.boot.service.OrderListService;
+import com.spring.boot.service.PersonalRecommender;
 import com.spring.boot.service.ProductService;
+import com.spring.boot.service.ProductSuggester;
+import com.spring.boot.service.RecentlyViewed;
 import com.spring.boot.service.UserService;
 
 import lombok.RequiredArgsConstructor;
@@ -32,48 +45,41 @@ public class MainController {
 	private final ProductService productService;
 	private final OrderListService orderListService;
 	private final SpringTemplateEngine templateEngine;
+	private final CategoryStatistics categoryStatistics;
+	private final ProductSuggester productSuggester;
+	private final MainPageSnapshotService mainPageSnapshotService;
+	private final PersonalRecommender personalRecommender;
+	private final RecentlyViewed recentlyViewed;
+	private final MainPageHtmlCache mainPageHtmlCache;
 
 	@GetMapping("/main")
-	public String mainPage(@AuthenticationPrincipal PrincipalDetails principalDetails, Model model) {
+	public ModelAndView mainPage(@AuthenticationPrincipal PrincipalDetails principalDetails, Model model) {
 
-		// 판매량 상위 3개
-		Pageable topN = PageRequest.of(0, 3);
+		// 미리 만들어 둔 메인 화면 스냅샷(최근 등록, 판매량 상위, 카테고리별 판매량 상위)
+		MainPageSnapshot snapshot = mainPageSnapshotService.getSnapshot();
 
-		//로그인 한 유저가 관심가질만한 상품 추천
-		if (principalDetails != null) {
-			SiteUser user = userService.getUserByUserName(principalDetails.getUsername());
-
-			String userInterest = user.getInterest1();
-
-			// interest가 일치하는 상품 중 판매량이 높은 순으로 3개 가져오기
-			List<Product> productsFoundByInterest = productService.getProductsByCategory(userInterest);
-
-			List<Long> top3SellingProductnosFoundByInterest = orderListService
-					.getTopNSellingProductnosFoundByCategory(productsFoundByInterest, topN);
+		// 비로그인은 모두 같은 화면이므로 스냅샷 버전별로 렌더링해 둔 HTML 사용
+		if (principalDetails == null) {
+			return new ModelAndView(mainPageHtmlCache.getView(snapshot));
+		}
 
-			List<Product> top3SellingProductsFoundByInterest = productService
-					.getTopNSellingProducts(top3SellingProductnosFoundByInterest);
+		//로그인 한 유저가 관심가질만한 상품 추천
+		SiteUser user = userService.getUserByUserName(principalDetails.getUsername());
 
-			model.addAttribute("top3products", top3SellingProductsFoundByInterest);
-			model.addAttribute("user", user);
+		// interest1~3 카테고리의 판매 상위 후보를 가중치로 병합해서 3개(이미 구매한 상품 제외)
+		model.addAttribute("top3products", personalRecommender.recommend(user, snapshot, 3));
+		model.addAttribute("user", user);
 
-		}
+		// 최근 본 상품
+		model.addAttribute("recentProducts", productService.getCardsInOrder(recentlyViewed.get(user.getId(), 8)));
 
 		// 최근등록상품8개
-		List<Product> recentlyProducts = productService.getTop8NewestProducts();
-		model.addAttribute("recentlyProducts", recentlyProducts);
+		model.addAttribute("recentlyProducts", snapshot.getRecentlyProducts());
 
 		// 판매량 상위 8개
-		topN = PageRequest.of(0, 8);
-
-		// 주문내역에서 groupby를 통해 가장 많이 판매된 상품의 productno를 8개 가져옴
-		List<Long> top8SellingProductnos = orderListService.getTopNSellingProductnos(topN);
+		model.addAttribute("productListTop8", snapshot.getProductListTop8());
 
-		// 프로덕트에서 검색해서 가장 많이 팔린 상품 8개 리스트 들고 감
-		List<Product> productListTop8 = productService.getTopNSellingProducts(top8SellingProductnos);
-		model.addAttribute("productListTop8", productListTop8);
-
-		return "mainPage";
+		return new ModelAndView("mainPage");
 	}
 
 	// 메인에서 검색시이곳으로 keyword가 검색어
@@ -90,6 +96,9 @@ public class MainController {
 		}
 
 		model.addAttribute("paging", productService.getSearchList(pageRequestDTO, sort));
+		
+		// 카테고리별 상품 수/가격대(메모리에 유지된 통계라 추가 쿼리 없음)
+		model.addAttribute("facets", categoryStatistics.getFacets());
 
 		if (sort != null && !sort.isEmpty()) {
 			if (sort.equals("newest")) {
@@ -100,6 +109,8 @@ public class MainController {
 				sortText = "높은 가격순";
 			} else if (sort.equals("category")) {
 				sortText = "카테고리순";
+			} else if (sort.equals("mostViewed")) {
+				sortText = "조회 많은순";
 			}
 
 			model.addAttribute("sort", sort);
@@ -117,6 +128,15 @@ public class MainController {
 
 	}
 
+	// 검색창 자동완성(메모리에서만 조회)
+	@GetMapping("/suggest")
+	@ResponseBody
+	public List<SuggestionDTO> suggest(@RequestParam(value = "q", required = false) String q) {
+
+		return productSuggester.suggest(q);
+
+	}
+
 	// 베스트 상품 페이지
 	@GetMapping("/searchBest")
 	public String searchBest(@RequestParam(value = "sort", required = false) String sort,
@@ -131,19 +151,34 @@ public class MainController {
 			model.addAttribute("user", user);
 		}
 
-		// 판매량 상위 20개
-		Pageable top20 = PageRequest.of(0, 20);
+		PageResultDTO<ProductDTO, ProductCardDTO> paging;
+		
+		if (sort != null && sort.startsWith("trending")) {
+			
+			// 최근 판매량 상위 20개(트렌드 순위 그대로)
+			pageRequestDTO.setCursor(null);
+			paging = productService.getRankedProducts(orderListService.getTrendingProductnos(sort, 20), pageRequestDTO);
+			
+		} else {
+			
+			// 판매량 상위 20개
+			Pageable top20 = PageRequest.of(0, 20);
 
-		List<Long> top20SellingProductnos = orderListService.getTopNSellingProductnos(top20);
+			List<Long> top20SellingProductnos = orderListService.getTopNSellingProductnos(top20);
 
-		// 판매량 상위 20개 상품 중 2회 이상 재구매한 유저가 있는 상품
-		List<Long> productnosTop20SellingNBoughtMoreThan3TimesBySameUser = orderListService
-				.getProductnosBoughtMoreThan3TimesBySameUser(top20SellingProductnos);
+			// 판매량 상위 20개 상품 중 2회 이상 재구매한 유저가 있는 상품
+			List<Long> productnosTop20SellingNBoughtMoreThan3TimesBySameUser = orderListService
+					.getProductnosBoughtMoreThan3TimesBySameUser(top20SellingProductnos);
 
-		model.addAttribute("paging", 
-				productService.getBestProducts(
-						productnosTop20SellingNBoughtMoreThan3TimesBySameUser, pageRequestDTO, sort)
-		);
+			paging = productService.getBestProducts(
+					productnosTop20SellingNBoughtMoreThan3TimesBySameUser, pageRequestDTO, sort);
+		}
+		
+		model.addAttribute("paging", paging);
+		
+		// 화면에 나온 상품의 재구매 통계(메모리에 유지된 값이라 추가 쿼리 없음)
+		model.addAttribute("repeatStats", orderListService.getRepeatBuyerStats(
+				paging.getDtoList().stream().map(ProductDTO::getId).collect(Collectors.toList())));
 		
 		if (sort != null && !sort.isEmpty()) {
 			if (sort.equals("newest")) {
@@ -154,6 +189,14 @@ public class MainController {
 				sortText = "높은 가격순";
 			} else if (sort.equals("category")) {
 				sortText = "카테고리순";
+			} else if (sort.equals("trending")) {
+				sortText = "요즘 뜨는순";
+			} else if (sort.equals("trendingHour")) {
+				sortText = "1시간 판매순";
+			} else if (sort.equals("trendingDay")) {
+				sortText = "24시간 판매순";
+			} else if (sort.equals("trendingWeek")) {
+				sortText = "7일 판매순";
 			}
 
 			model.addAttribute("sort", sort);
@@ -20,18 +20,19 @@ import org.springframework.web.bind.annotation.ResponseBody;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spring.boot.config.OutOfStockException;
+import com.spring.boot.dto.ItemDataForm;
 import com.spring.boot.dto.OrderResultForm;
 import com.spring.boot.dto.PaymentDataForm;
 import com.spring.boot.dto.PrincipalDetails;
-import com.spring.boot.model.OrderList;
 import com.spring.boot.model.Product;
 import com.spring.boot.model.SiteUser;
 import com.spring.boot.service.CartItemService;
 import com.spring.boot.service.CartService;
-import com.spring.boot.service.OrderListService;
-import com.spring.boot.service.PayService;
-import com.spring.boot.service.PointService;
+import com.spring.boot.service.CheckoutService;
+import com.spring.boot.service.FlashSaleLedger;
 import com.spring.boot.service.ProductService;
+import com.spring.boot.service.RecentlyViewed;
 import com.spring.boot.service.UserService;
 
 import lombok.RequiredArgsConstructor;
@@ -45,9 +46,9 @@ public class OrderController {
 	private final CartItemService cartItemService;
 	private final UserService userService;
 	private final ProductService productService;
-	private final OrderListService orderListService;
-	private final PointService pointService;
-	private final PayService payService;
+	private final RecentlyViewed recentlyViewed;
+	private final CheckoutService checkoutService;
+	private final FlashSaleLedger flashSaleLedger;
 	
 	@GetMapping("/cart")
 	public String cart(Model model ,@AuthenticationPrincipal PrincipalDetails principalDetails) {
@@ -61,6 +62,9 @@ public class OrderController {
 		model.addAttribute("cartItemList",cartService.getCartItemList(principalDetails.getUsername()));
 		model.addAttribute("productList", productList);
 		model.addAttribute("user",user);
+		
+		//최근 본 상품
+		model.addAttribute("recentProducts", productService.getCardsInOrder(recentlyViewed.get(user.getId(), 8)));
 		return "cart";
 		}
 		//비로그인계정은 로그인으로
@@ -157,15 +161,26 @@ public class OrderController {
     }
 
     @PostMapping("/checkStockBeforePay")
-    public ResponseEntity<String> verifyPay(@RequestBody List<Map<String, Long>> itemIds) {
+    public ResponseEntity<String> verifyPay(@RequestBody List<Map<String, Long>> itemIds,
+    		@AuthenticationPrincipal PrincipalDetails principalDetails) {
         
     	boolean allStockOk = true;
+    	List<ItemDataForm> flashSaleItems = new ArrayList<>();
     	
     	for(Map<String,Long> selectProduct : itemIds) {
 			
 			Long id = selectProduct.get("id");
 			Long count = selectProduct.get("count");
 			
+			//타임딜 상품은 DB 대신 예약 장부에서 확인
+			if(flashSaleLedger.isFlashSale(id)) {
+				ItemDataForm item = new ItemDataForm();
+				item.setId(id);
+				item.setCount(count.intValue());
+				flashSaleItems.add(item);
+				continue;
+			}
+			
 			Product product = productService.getProductById(id);
 			
 			int productCount = product.getStock();
@@ -177,6 +192,12 @@ public class OrderController {
 
 			
 		}
+    	
+    	//타임딜 상품은 결제하는 동안 수량을 예약(결제가 끝나지 않으면 만료되어 되돌아감)
+    	if(allStockOk && !flashSaleItems.isEmpty()) {
+    		allStockOk = principalDetails != null && flashSaleLedger.reserve(
+    				userService.getUserByUserName(principalDetails.getUsername()).getId(), flashSaleItems);
+    	}
 
         if (allStockOk) {
             return ResponseEntity.ok("Inventory is sufficient.");
@@ -190,66 +211,30 @@ public class OrderController {
 
 	@PostMapping("/checkout")
 	@ResponseBody
-	public Map<String, Object> saveOrder(@RequestBody PaymentDataForm paymentDataForm,
+	public ResponseEntity<Map<String, Object>> saveOrder(@RequestBody PaymentDataForm paymentDataForm,
 			@AuthenticationPrincipal PrincipalDetails principalDetails, Model model) {
 		
 		SiteUser user = userService.getUserByUserName(principalDetails.getUsername());
 		
-		//구매한상품들 재고 감소
-		productService.updateProductStock(paymentDataForm.getItemIds());
-		
-		//orderlist(구매내역테이블 저장)
-		List<OrderList> orderLists = orderListService.saveOrderHistory(paymentDataForm,user);
-		
-		//장바구니에서 삭제
-		cartItemService.deleteBuyItems(paymentDataForm, user);
-		
-		int point = paymentDataForm.getPointPay();
-		int payMoney = paymentDataForm.getPayMoney();
+		Map<String, Object> response = new HashMap<>();
 		
-		//포인트사용시 포인트사용내역저장
-		if(point>0) {
-			pointService.saveUsePointHistory(user, point, paymentDataForm.getName());
-		}
-		//페이머니 결제금액있을경우 사용내역저장
-		if(payMoney>0) {
-			payService.savePayHistory(user, payMoney, paymentDataForm.getName());
-		}
-		//구매등급,멤버쉽에따라 포인트적립
-		String grade = user.getGrade();
-		boolean membership = user.isMembership();
-		int accumulate =1; //적립율 기본1,실버3,골드5,플래티넘8 , 멤버쉽가입시 추가10퍼센트 적립
-		switch (grade) {
-		case "P":	
-			accumulate=8;
-			break;
-		case "G":	
-			accumulate=5;
-			break;
-		case "S":	
-			accumulate=3;
-			break;
-		}
-		if(membership) {
-			accumulate+=10;
+		try {
+			//재고 감소, 주문내역, 적립/등급을 한 트랜잭션으로 처리(장바구니 삭제, 포인트/페이머니 내역은 응답 후 처리)
+			//주문번호,상품이름,이미지,판매자id,수량,가격 담아놓음
+			List<OrderResultForm> paymentsData = checkoutService.checkout(paymentDataForm, user);
+			
+			response.put("status", "success");
+			response.put("paymentsData", paymentsData);
+			
+		} catch (OutOfStockException e) {
+			//그 사이 다른 주문으로 재고가 부족해진 경우(아무것도 저장되지 않음)
+			response.put("status", "fail");
+			response.put("message", e.getMessage());
+			
+			return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
 		}
 		
-		//적립금,페이머니,등급조정
-		int getPoint = userService.updateAfterOrder(user, point, payMoney, paymentDataForm.getPaid_amount() , accumulate);
-		
-		//포인트적립내역저장
-		pointService.saveGetPointHistory(user, getPoint, paymentDataForm.getName());
-		
-		//주문번호,상품이름,이미지,판매자id,수량,가격 담아놓음
-		List<OrderResultForm> paymentsData = productService.getResultForm(orderLists);
-		
-		
-		Map<String, Object> response = new HashMap<>();
-	    response.put("status", "success");
-	    response.put("paymentsData", paymentsData);
-	    
-		
-		return response;
+		return ResponseEntity.ok(response);
 	}
 	
 	@PostMapping("/order_result")
@@ -1,15 +1,12 @@
 package com.spring.boot.controller;
 
 
-import java.net.MalformedURLException;
-import java.sql.Timestamp;
-import java.time.LocalDateTime;
+import java.io.IOException;
 import java.util.List;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.ResponseEntity;
@@ -22,11 +19,11 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RequestParam;
 
 
 import com.spring.boot.dto.PrincipalDetails;
+import com.spring.boot.dto.ProductDetailView;
 import com.spring.boot.dto.ProductForm;
 import com.spring.boot.dto.QuestionForm;
 import com.spring.boot.model.Cart;
@@ -37,8 +34,12 @@ import com.spring.boot.model.Review;
 import com.spring.boot.model.SiteUser;
 import com.spring.boot.service.CartItemService;
 import com.spring.boot.service.CartService;
+import com.spring.boot.service.ProductDetailService;
+import com.spring.boot.service.ProductImageService;
 import com.spring.boot.service.ProductService;
+import com.spring.boot.service.ProductViewCounter;
 import com.spring.boot.service.QuestionService;
+import com.spring.boot.service.RecentlyViewed;
 import com.spring.boot.service.ReviewService;
 import com.spring.boot.service.UserService;
 
@@ -56,6 +57,10 @@ public class ProductController {
 	private final CartItemService cartItemService;
 	private final CartService cartService;
 	private final UserService userService;
+	private final RecentlyViewed recentlyViewed;
+	private final ProductViewCounter productViewCounter;
+	private final ProductDetailService productDetailService;
+	private final ProductImageService productImageService;
 	
 	//전체상품 조회하는 메소드 =main?
 	@RequestMapping("/list")
@@ -108,48 +113,35 @@ public class ProductController {
 	@GetMapping("/detail/{productNo}")
 	public String detail(Model model, @PathVariable("productNo") long productNo
 			,ProductForm productForm , @PageableDefault Pageable pageable,
-			@AuthenticationPrincipal PrincipalDetails principalDetails,
-			
-			@RequestParam(name = "page", defaultValue = "0") int page,
-            @RequestParam(name = "size", defaultValue = "10") int size) {
+			@AuthenticationPrincipal PrincipalDetails principalDetails) {
 		
 		
-		Product product = productService.getProductDetailByNo(productNo);
-		Timestamp timestamp = (Timestamp) product.getDate();// ... (여기에 Timestamp 객체를 가져오는 코드)
-		LocalDateTime localDateTime = timestamp.toLocalDateTime();
+		//상품, 판매자의 다른 상품, 리뷰/문의 첫 페이지를 한번에 조회(첫 페이지는 캐시 사용)
+		ProductDetailView view = productDetailService.getDetailView(productNo, pageable);
 		
-		model.addAttribute("product",product);
-		model.addAttribute("localDateTime",localDateTime);
+		//조회수(메모리에 모았다가 주기적으로 저장)
+		productViewCounter.increment(productNo);
+		
+		model.addAttribute("product",view.getProduct());
+		model.addAttribute("localDateTime",view.getLocalDateTime());
 		
 		if(principalDetails != null) {
 			SiteUser user = userService.getUserByUserName(principalDetails.getUsername());			
 			model.addAttribute("user",user);		
+			
+			//최근 본 상품에 추가(DB에는 주기적으로 저장)
+			recentlyViewed.record(user.getId(), productNo);
 		}
 		
-		//상품리뷰 페이징을 위한 값 넘김
-		Product productnum = productService.getProductDetailByNo(productNo);
-		
-		Page<Review> paging = reviewService.getPnoReview(pageable, productnum);
-		
-		Page<Question> paging1 = questionService.getQuestionList(pageable, product);
-		
-		//ajax 페이징을 위한 코딩 여기 추가 
-		PageRequest pageable1 = PageRequest.of(page, size);
-		Page<Question> entities = questionService.getQuestionList(pageable1, product);
-	    model.addAttribute("entities", entities);
-		
-	    
-		
-		model.addAttribute("paging1",paging1);//qna문의하기의페이징 qna_list layout
-		model.addAttribute("paging",paging);//상품리뷰의 페이징
-		
-		//pno 의 판매자를 찾기 
-		SiteUser seller = product.getUser();
-		//product id 와 관련된 siteuser 의 id 에서 product list 가져와서 관련된상품으로 뿌려주기 
-		List<Product> products =productService.getListsById(seller);
+		//ajax 페이징(리뷰와 문의 모두 같은 page 값 사용)
+	    model.addAttribute("entities", view.getQuestions());
+		model.addAttribute("paging1",view.getQuestions());//qna문의하기의페이징 qna_list layout
+		model.addAttribute("paging",view.getReviews());//상품리뷰의 페이징
 		
-		model.addAttribute("products",products);
-		model.addAttribute("seller",seller);//판매자정보확인
+		//판매자의 다른 상품(전체 목록 대신 최신 상품 몇개만)
+		model.addAttribute("products",view.getSellerProducts());
+		model.addAttribute("seller",view.getSeller());//판매자정보확인
+		model.addAttribute("boughtTogether",view.getBoughtTogether());//함께 구매한 상품
 		//??????아놔 근데 이러면 보안이 너무 허술해지잖아 ??
 		model.addAttribute("principalDetails",principalDetails);//auth 넘겨야 권한에 접근가능 principal
 		
@@ -209,10 +201,11 @@ public class ProductController {
 	}
 	
 	
-	@ResponseBody
-    @GetMapping("/images/{image}")
-    public Resource processImg(@PathVariable String image) throws MalformedURLException {
-        return new UrlResource("file:src/main/resources/static/product/" + image);
+	//상품 이미지(ETag/Last-Modified 캐시, Range, sendfile 전송)
+    @GetMapping("/images/{image:.+}")
+    public void processImg(@PathVariable String image, HttpServletRequest request,
+    		HttpServletResponse response) throws IOException {
+        productImageService.serve(image, request, response);
     }
 	
 
@@ -1,8 +1,12 @@
 package com.spring.boot.dao;
 
+import java.util.Collection;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.spring.boot.model.Cart;
 import com.spring.boot.model.CartItem;
@@ -11,6 +15,11 @@ import com.spring.boot.model.Product;
 public interface CartItemRepository extends JpaRepository<CartItem, Long> {
 
 	void deleteByProductAndCart(Product product, Cart cart);
+	
+	//장바구니에서 주문한 상품들 한번에 삭제
+	@Modifying
+	@Query("DELETE FROM CartItem ci WHERE ci.cart.id = :cartId AND ci.product.id IN :productIds")
+	int deleteByCartIdAndProductIds(@Param("cartId") Long cartId, @Param("productIds") Collection<Long> productIds);
 
 	
 	//cartid 와 product 로 중복되어 담긴 상품이 있는 지 검사한다 
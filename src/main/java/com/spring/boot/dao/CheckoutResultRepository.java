@@ -0,0 +1,32 @@
+package com.spring.boot.dao;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.spring.boot.model.CheckoutResult;
+
+public interface CheckoutResultRepository extends JpaRepository<CheckoutResult, String> {
+
+	// 주문번호 선점(처음이면 1, 이미 있으면 0)
+	// 같은 주문번호로 처리 중인 트랜잭션이 있으면 그 트랜잭션이 끝날 때까지 기다림(커밋되면 0, 롤백되면 1)
+	@Modifying
+	@Query(value = "INSERT IGNORE INTO checkout_result (merchant_uid, user_id, created_at) "
+			+ "VALUES (:merchantUid, :userId, :createdAt)", nativeQuery = true)
+	int claim(@Param("merchantUid") String merchantUid, @Param("userId") Long userId,
+			@Param("createdAt") LocalDateTime createdAt);
+
+	// 이미 처리된 주문 결과(다른 사용자의 주문번호면 null)
+	// 잠금 읽기라 먼저 처리 중인 트랜잭션이 커밋한 최신 값을 읽음
+	@Query(value = "SELECT result_json FROM checkout_result WHERE merchant_uid = :merchantUid AND user_id = :userId "
+			+ "LOCK IN SHARE MODE", nativeQuery = true)
+	String findResultJson(@Param("merchantUid") String merchantUid, @Param("userId") Long userId);
+
+	// 주문 결과 저장
+	@Modifying
+	@Query(value = "UPDATE checkout_result SET result_json = :resultJson WHERE merchant_uid = :merchantUid", nativeQuery = true)
+	int saveResult(@Param("merchantUid") String merchantUid, @Param("resultJson") String resultJson);
+}
@@ -0,0 +1,14 @@
+package com.spring.boot.dao;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.spring.boot.model.FlashSale;
+
+public interface FlashSaleRepository extends JpaRepository<FlashSale, Long> {
+
+	// 아직 끝나지 않은 타임딜(서버 시작시 다시 불러옴)
+	List<FlashSale> findByEndAtAfter(LocalDateTime now);
+}
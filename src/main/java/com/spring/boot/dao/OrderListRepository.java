@@ -1,11 +1,16 @@
 package com.spring.boot.dao;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import com.spring.boot.model.OrderList;
@@ -28,4 +33,17 @@ public interface OrderListRepository extends JpaRepository<OrderList, Long>, Jpa
 	// 판매량 상위 20개의 productno 리스트로 재구매율이 높은(재구매 3회 이상) 상품의 productno와 구매한 userId 반환
 	@Query("SELECT o.productno, o.user.id FROM OrderList o WHERE o.productno IN :productno GROUP BY o.productno, o.user.id HAVING COUNT(o) >= 3")
 	List<Object[]> findProductsBoughtMoreThan3TimesBySameUser(@Param("productno") List<Long> productno);
+
+	// 트렌드 순위 복구용 - 기준 시간 이후 주문(productno, orderDate, count, 주문내역 id)을 시간순으로 반환
+	@Query("SELECT o.productno, o.orderDate, o.count, o.Id FROM OrderList o WHERE o.orderDate >= :since ORDER BY o.orderDate")
+	List<Object[]> findSalesSince(@Param("since") LocalDateTime since);
+
+	// 사용자가 구매한 상품번호(중복 제외) - 추천에서 이미 산 상품 제외용
+	@Query("SELECT DISTINCT o.productno FROM OrderList o WHERE o.user.id = :userId AND o.productno IS NOT NULL")
+	List<Long> findBoughtProductnos(@Param("userId") Long userId);
+
+	// 함께 구매한 상품 집계용 - (orderNo, productno)를 주문번호 순으로 스트리밍(MySQL은 fetchSize MIN_VALUE일 때 한 행씩 읽음)
+	@QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "" + Integer.MIN_VALUE))
+	@Query("SELECT o.orderNo, o.productno FROM OrderList o WHERE o.orderNo IS NOT NULL AND o.productno IS NOT NULL ORDER BY o.orderNo")
+	Stream<Object[]> streamBaskets();
 }
@@ -0,0 +1,39 @@
+package com.spring.boot.dao;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.spring.boot.model.OutboxEvent;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+	// 처리할 차례인 행을 limit 건까지 owner 몫으로 표시(짧은 트랜잭션에서 실행, 처리하는 동안 행을 잠그고 있지 않음)
+	// 다음 처리 시간도 lockedUntil로 미뤄서 처리 중인 행은 (next_attempt_at, id) 색인 범위에 들어오지 않게 함
+	// -> 처리가 끝나지 않고 lockedUntil이 지나면(서버 종료 등) 다른 작업이 다시 가져감
+	@Modifying
+	@Query(value = "UPDATE outbox_event SET locked_by = :owner, locked_until = :lockedUntil, next_attempt_at = :lockedUntil "
+			+ "WHERE next_attempt_at <= :now ORDER BY next_attempt_at, id LIMIT :limit", nativeQuery = true)
+	int claim(@Param("owner") String owner, @Param("now") LocalDateTime now,
+			@Param("lockedUntil") LocalDateTime lockedUntil, @Param("limit") int limit);
+
+	// owner 몫으로 가져간 행
+	List<OutboxEvent> findByLockedByOrderById(String owner);
+
+	// 처리 끝난 행 삭제(그 사이 lockedUntil이 지나 다른 작업이 가져갔으면 삭제되지 않음)
+	@Modifying
+	@Query("delete from OutboxEvent e where e.id in :ids and e.lockedBy = :owner")
+	int deleteClaimed(@Param("ids") Collection<Long> ids, @Param("owner") String owner);
+
+	// 실패 기록(다음 처리 시간 뒤로 미루고 다른 작업이 가져갈 수 있게 표시 해제)
+	@Modifying
+	@Query("update OutboxEvent e set e.attempts = e.attempts + 1, e.nextAttemptAt = :nextAttemptAt, e.lastError = :error, "
+			+ "e.lockedBy = null, e.lockedUntil = null where e.id = :id and e.lockedBy = :owner")
+	int markFailed(@Param("id") Long id, @Param("owner") String owner, @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+			@Param("error") String error);
+}
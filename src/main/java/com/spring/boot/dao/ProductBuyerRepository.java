@@ -0,0 +1,34 @@
+package com.spring.boot.dao;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.spring.boot.model.ProductBuyer;
+import com.spring.boot.model.ProductBuyerId;
+
+public interface ProductBuyerRepository extends JpaRepository<ProductBuyer, ProductBuyerId>, ProductBuyerRepositoryCustom {
+
+	// 여러 구매자의 구매 횟수(상품번호, 사용자id, 구매 횟수), 상품번호/사용자id 조합으로 걸러서 사용
+	@Query(value = "SELECT productno, user_id, purchase_count FROM product_buyer "
+			+ "WHERE productno IN (:productnos) AND user_id IN (:userIds)", nativeQuery = true)
+	List<Object[]> findPurchaseCounts(@Param("productnos") Collection<Long> productnos,
+			@Param("userIds") Collection<Long> userIds);
+
+	// 집계 테이블이 비어있을 때 기존 주문내역으로 한번 채움
+	@Modifying
+	@Query(value = "INSERT INTO product_buyer (productno, user_id, purchase_count) "
+			+ "SELECT o.productno, o.user_id, COUNT(*) FROM order_list o "
+			+ "WHERE o.productno IS NOT NULL AND o.user_id IS NOT NULL GROUP BY o.productno, o.user_id",
+			nativeQuery = true)
+	int backfillFromOrderList();
+
+	// 상품별 구매 횟수 분포(상품번호, 구매 횟수(최대값으로 자름), 구매자 수)
+	@Query(value = "SELECT productno, LEAST(purchase_count, :cap), COUNT(*) FROM product_buyer "
+			+ "GROUP BY productno, LEAST(purchase_count, :cap)", nativeQuery = true)
+	List<Object[]> findPurchaseHistogram(@Param("cap") int cap);
+}
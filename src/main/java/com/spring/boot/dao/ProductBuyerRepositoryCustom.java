@@ -0,0 +1,10 @@
+package com.spring.boot.dao;
+
+import java.util.List;
+
+public interface ProductBuyerRepositoryCustom {
+
+	// 주문 상품마다 구매 한 건 반영(처음 산 상품이면 추가, 아니면 횟수 증가), JDBC 배치로 한번에 전송
+	void addPurchases(List<Long> productnos, Long userId);
+
+}
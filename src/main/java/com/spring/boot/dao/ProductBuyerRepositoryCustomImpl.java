@@ -0,0 +1,42 @@
+package com.spring.boot.dao;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.hibernate.Session;
+
+//ProductBuyerRepository에서 @Query로 만들 수 없는 쿼리 구현
+public class ProductBuyerRepositoryCustomImpl implements ProductBuyerRepositoryCustom {
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	public void addPurchases(List<Long> productnos, Long userId) {
+
+		//동시에 들어온 주문끼리 서로 반대 순서로 잠그지 않도록(데드락) 상품번호 순서로 실행
+		List<Long> sorted = new ArrayList<>(productnos);
+		Collections.sort(sorted);
+
+		entityManager.unwrap(Session.class).doWork(connection -> {
+			try (PreparedStatement statement = connection.prepareStatement(
+					"INSERT INTO product_buyer (productno, user_id, purchase_count) VALUES (?, ?, 1) "
+							+ "ON DUPLICATE KEY UPDATE purchase_count = purchase_count + 1")) {
+
+				for (Long productno : sorted) {
+					statement.setLong(1, productno);
+					statement.setLong(2, userId);
+					statement.addBatch();
+				}
+
+				statement.executeBatch();
+			}
+		});
+	}
+
+}
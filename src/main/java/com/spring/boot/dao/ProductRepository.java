@@ -1,12 +1,11 @@
 package com.spring.boot.dao;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.domain.Specification;
-import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
@@ -14,7 +13,8 @@ import org.springframework.data.repository.query.Param;
 
 import com.spring.boot.model.Product;
 
-public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
+public interface ProductRepository
+		extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product>, ProductRepositoryCustom {
 
 	// 주의: 여기 레포에서 하나라도 안돌아가면 에러남
 
@@ -22,9 +22,6 @@ public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpec
 	Page<Product> findAll(Pageable pageable);//
 	// pageable 을 돌려줘야함 대신
 
-	@EntityGraph(value = "Product.withAll", type = EntityGraph.EntityGraphType.LOAD)
-	Page<Product> findAll(Specification<Product> spec, Pageable pageable);
-
 	// 판매자id 로 product상품List 찾는 메소드
 	Page<Product> findByUserId(long userId, Pageable pageable);
 	// 매개변수id 랑 pageable 둘다 줘야하나????????
@@ -68,4 +65,26 @@ public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpec
 	// productlist-상품id 로 관련된 판매자siteuser의 다른상품추천하기
 	List<Product> findByUserId(long siteuser);
 
+	// 검색 색인 생성용(id, 상품명, 상품설명, 카테고리)
+	@Query("SELECT p.id, p.pname, p.content, p.category FROM Product p")
+	List<Object[]> findSearchDocuments();
+
+	// 카테고리 통계 집계용(id, 카테고리, 가격, 재고, 판매여부)
+	@Query("SELECT p.id, p.category, p.price, p.stock, p.selling FROM Product p")
+	List<Object[]> findCategoryStates();
+
+	// 카테고리별 판매 순위용(id, 카테고리)
+	@Query("SELECT p.id, p.category FROM Product p")
+	List<Object[]> findCategories();
+
+	// 조회수 상위 상품의 조회수와 판매 집계(상품번호, 상품명, 조회수, 주문 건수, 판매 수량)
+	@Query(value = "SELECT p.id, p.pname, p.views, COALESCE(s.order_count, 0), COALESCE(s.quantity, 0) "
+			+ "FROM product p LEFT JOIN product_sales s ON s.productno = p.id "
+			+ "ORDER BY p.views DESC, p.id ASC LIMIT :size", nativeQuery = true)
+	List<Object[]> findViewsAndSales(@Param("size") int size);
+
+	// 주문할 상품들과 판매자를 한번에 조회(상품마다 findById 하지 않도록)
+	@Query("SELECT p FROM Product p JOIN FETCH p.user WHERE p.id IN :ids")
+	List<Product> findWithSellerByIdIn(@Param("ids") Collection<Long> ids);
+
 }
@@ -0,0 +1,39 @@
+package com.spring.boot.dao;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import com.spring.boot.dto.ItemDataForm;
+import com.spring.boot.dto.ProductCardDTO;
+import com.spring.boot.model.Product;
+
+public interface ProductRepositoryCustom {
+
+	// 상품 카드에 필요한 컬럼만 조회(판매자, 리뷰 목록 제외)
+	// count 쿼리 없이 offset부터 limit 개수만큼만 조회
+	List<ProductCardDTO> findCards(Specification<Product> spec, Sort sort, long offset, int limit);
+
+	// 상품별 조회수 증가분을 한번에 반영(상품 id -> 증가분)
+	void addViews(Map<Long, Long> views);
+
+	// 재고가 주문 수량 이상일 때만 감소(상품마다 조건부 UPDATE 한 문장씩, JDBC 배치로 한번에 전송)
+	// 주문 상품 순서대로 변경된 행 수(0이면 재고 부족)
+	int[] decreaseStock(List<ItemDataForm> items);
+
+	// 현재 재고(decreaseStock 뒤에 같은 트랜잭션에서 읽으면 감소된 최신 값), 상품 id -> 재고
+	Map<Long, Integer> findStocks(Collection<Long> ids);
+
+	// DB에서 직접 바꾼 상품을 영속성 컨텍스트에서 분리(예전 값으로 다시 UPDATE 되지 않도록)
+	void detach(Collection<Product> products);
+
+	// 상품별 재고 증감분을 한번에 반영(상품 id -> 증감분, 타임딜 예약 장부에서 확정된 판매 수량)
+	void addStock(Map<Long, Long> deltas);
+
+	// 타임딜 시작시 재고 읽기(이미 재고 행을 잠근 주문이 끝날 때까지 기다렸다가 읽음)
+	int lockStock(Long id);
+
+}
@@ -0,0 +1,178 @@
+package com.spring.boot.dao;
+
+import java.sql.PreparedStatement;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+import org.hibernate.Session;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import com.spring.boot.dto.ItemDataForm;
+import com.spring.boot.dto.ProductCardDTO;
+import com.spring.boot.model.Product;
+
+//ProductRepository에서 메소드 이름이나 @Query로 만들 수 없는 쿼리 구현
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	public List<ProductCardDTO> findCards(Specification<Product> spec, Sort sort, long offset, int limit) {
+
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<ProductCardDTO> query = cb.createQuery(ProductCardDTO.class);
+		Root<Product> root = query.from(Product.class);
+
+		query.select(cb.construct(ProductCardDTO.class,
+				root.get("id"), root.get("category"), root.get("pname"), root.get("content"),
+				root.get("price"), root.get("date"), root.get("stock"), root.get("selling"),
+				root.get("image"), root.get("views")));
+
+		if (spec != null) {
+			Predicate predicate = spec.toPredicate(root, query, cb);
+
+			if (predicate != null) {
+				query.where(predicate);
+			}
+		}
+
+		if (sort.isSorted()) {
+			query.orderBy(QueryUtils.toOrders(sort, root, cb));
+		}
+
+		return entityManager.createQuery(query)
+				.setFirstResult((int) offset)
+				.setMaxResults(limit)
+				.getResultList();
+	}
+
+	@Override
+	public void addViews(Map<Long, Long> views) {
+
+		//상품마다 UPDATE 한 문장씩이지만 JDBC 배치로 한번에 전송
+		entityManager.unwrap(Session.class).doWork(connection -> {
+			try (PreparedStatement statement = connection
+					.prepareStatement("UPDATE product SET views = views + ? WHERE id = ?")) {
+
+				for (Map.Entry<Long, Long> entry : views.entrySet()) {
+					statement.setLong(1, entry.getValue());
+					statement.setLong(2, entry.getKey());
+					statement.addBatch();
+				}
+
+				statement.executeBatch();
+			}
+		});
+	}
+
+	@Override
+	public int[] decreaseStock(List<ItemDataForm> items) {
+
+		//여러 상품을 주문하는 요청끼리 서로 반대 순서로 잠그지 않도록(데드락) 상품 id 순서로 실행
+		Integer[] order = new Integer[items.size()];
+
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, (a, b) -> Long.compare(items.get(a).getId(), items.get(b).getId()));
+
+		int[] sorted = entityManager.unwrap(Session.class).doReturningWork(connection -> {
+			try (PreparedStatement statement = connection
+					.prepareStatement("UPDATE product SET stock = stock - ? WHERE id = ? AND stock >= ?")) {
+
+				for (Integer index : order) {
+					ItemDataForm item = items.get(index);
+
+					statement.setInt(1, item.getCount());
+					statement.setLong(2, item.getId());
+					statement.setInt(3, item.getCount());
+					statement.addBatch();
+				}
+
+				return statement.executeBatch();
+			}
+		});
+
+		//결과는 주문 상품 순서로
+		int[] updated = new int[items.size()];
+
+		for (int i = 0; i < order.length; i++) {
+			updated[order[i]] = sorted[i];
+		}
+
+		return updated;
+	}
+
+	@Override
+	public Map<Long, Integer> findStocks(Collection<Long> ids) {
+
+		Map<Long, Integer> stocks = new HashMap<>();
+
+		if (ids.isEmpty()) {
+			return stocks;
+		}
+
+		@SuppressWarnings("unchecked")
+		List<Object[]> rows = entityManager.createNativeQuery("SELECT id, stock FROM product WHERE id IN (:ids)")
+				.setParameter("ids", ids)
+				.getResultList();
+
+		for (Object[] row : rows) {
+			stocks.put(((Number) row[0]).longValue(), row[1] == null ? 0 : ((Number) row[1]).intValue());
+		}
+
+		return stocks;
+	}
+
+	@Override
+	public void detach(Collection<Product> products) {
+
+		for (Product product : products) {
+			if (entityManager.contains(product)) {
+				entityManager.detach(product);
+			}
+		}
+	}
+
+	@Override
+	public void addStock(Map<Long, Long> deltas) {
+
+		entityManager.unwrap(Session.class).doWork(connection -> {
+			try (PreparedStatement statement = connection
+					.prepareStatement("UPDATE product SET stock = stock + ? WHERE id = ?")) {
+
+				for (Map.Entry<Long, Long> entry : deltas.entrySet()) {
+					statement.setLong(1, entry.getValue());
+					statement.setLong(2, entry.getKey());
+					statement.addBatch();
+				}
+
+				statement.executeBatch();
+			}
+		});
+	}
+
+	@Override
+	public int lockStock(Long id) {
+
+		Object stock = entityManager.createNativeQuery("SELECT stock FROM product WHERE id = :id FOR UPDATE")
+				.setParameter("id", id)
+				.getSingleResult();
+
+		return stock == null ? 0 : ((Number) stock).intValue();
+	}
+
+}
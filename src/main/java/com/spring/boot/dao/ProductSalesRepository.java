@@ -0,0 +1,18 @@
+package com.spring.boot.dao;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.spring.boot.model.ProductSales;
+
+public interface ProductSalesRepository extends JpaRepository<ProductSales, Long>, ProductSalesRepositoryCustom {
+
+	// 집계 테이블이 비어있을 때 기존 주문내역으로 한번 채움
+	@Modifying
+	@Query(value = "INSERT INTO product_sales (productno, quantity, order_count) "
+			+ "SELECT o.productno, SUM(o.count), COUNT(*) FROM order_list o WHERE o.productno IS NOT NULL "
+			+ "GROUP BY o.productno", nativeQuery = true)
+	int backfillFromOrderList();
+}
@@ -0,0 +1,12 @@
+package com.spring.boot.dao;
+
+import java.util.List;
+
+import com.spring.boot.dto.ItemDataForm;
+
+public interface ProductSalesRepositoryCustom {
+
+	// 주문 상품마다 판매 한 건 반영(없으면 추가, 있으면 증가), JDBC 배치로 한번에 전송
+	void addSales(List<ItemDataForm> items);
+
+}
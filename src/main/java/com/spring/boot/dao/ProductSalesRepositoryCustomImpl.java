@@ -0,0 +1,44 @@
+package com.spring.boot.dao;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.hibernate.Session;
+
+import com.spring.boot.dto.ItemDataForm;
+
+//ProductSalesRepository에서 @Query로 만들 수 없는 쿼리 구현
+public class ProductSalesRepositoryCustomImpl implements ProductSalesRepositoryCustom {
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	public void addSales(List<ItemDataForm> items) {
+
+		//동시에 들어온 주문끼리 서로 반대 순서로 잠그지 않도록(데드락) 상품번호 순서로 실행
+		List<ItemDataForm> sorted = new ArrayList<>(items);
+		sorted.sort(Comparator.comparing(ItemDataForm::getId));
+
+		entityManager.unwrap(Session.class).doWork(connection -> {
+			try (PreparedStatement statement = connection.prepareStatement(
+					"INSERT INTO product_sales (productno, quantity, order_count) VALUES (?, ?, 1) "
+							+ "ON DUPLICATE KEY UPDATE quantity = quantity + VALUES(quantity), order_count = order_count + 1")) {
+
+				for (ItemDataForm item : sorted) {
+					statement.setLong(1, item.getId());
+					statement.setLong(2, item.getCount());
+					statement.addBatch();
+				}
+
+				statement.executeBatch();
+			}
+		});
+	}
+
+}
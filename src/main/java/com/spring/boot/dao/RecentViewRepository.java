@@ -0,0 +1,20 @@
+package com.spring.boot.dao;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.spring.boot.model.RecentView;
+
+public interface RecentViewRepository extends JpaRepository<RecentView, Long> {
+
+	// 사용자 한명의 목록 저장(없으면 추가, 있으면 교체) - 저장 전에 조회하지 않도록 네이티브 upsert
+	@Modifying
+	@Query(value = "INSERT INTO recent_view (user_id, product_ids, updated_at) VALUES (:userId, :productIds, :updatedAt) "
+			+ "ON DUPLICATE KEY UPDATE product_ids = :productIds, updated_at = :updatedAt", nativeQuery = true)
+	int upsert(@Param("userId") Long userId, @Param("productIds") byte[] productIds,
+			@Param("updatedAt") LocalDateTime updatedAt);
+}
@@ -3,6 +3,9 @@ package com.spring.boot.dao;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 
@@ -20,5 +23,28 @@ public interface UserRepository extends JpaRepository<SiteUser, Long>{
 	SiteUser findByNameAndTelAndEmail(String name, String tel, String email);
 	// id를 기반으로 사용자를 찾는 메서드 추가
 	//SiteUser findById(Long id);
-	
+
+	// 누적 구매금액 증가(주문내역을 먼저 저장한 뒤 호출)
+	// 아직 채우지 않은 사용자(NULL)는 지금 저장한 주문을 포함한 주문내역 합계로 채움
+	@Modifying
+	@Query(value = "UPDATE site_user SET purchase_amount = COALESCE(purchase_amount + :amount, "
+			+ "(SELECT COALESCE(SUM(o.price), 0) FROM order_list o WHERE o.user_id = :id)) WHERE id = :id", nativeQuery = true)
+	int addPurchaseAmount(@Param("id") Long id, @Param("amount") long amount);
+
+	// 누적 구매금액(같은 트랜잭션에서 방금 증가시킨 값)
+	@Query(value = "SELECT purchase_amount FROM site_user WHERE id = :id", nativeQuery = true)
+	Long findPurchaseAmount(@Param("id") Long id);
+
+	// 누적 구매금액을 아직 채우지 않은 사용자가 있는지
+	boolean existsByPurchaseAmountIsNull();
+
+	@Query("select max(u.id) from SiteUser u")
+	Long findMaxId();
+
+	// id 구간의 아직 채우지 않은 사용자 누적 구매금액을 주문내역 합계로 채움
+	@Modifying
+	@Query(value = "UPDATE site_user u SET u.purchase_amount = (SELECT COALESCE(SUM(o.price), 0) FROM order_list o "
+			+ "WHERE o.user_id = u.id) WHERE u.id BETWEEN :fromId AND :toId AND u.purchase_amount IS NULL", nativeQuery = true)
+	int backfillPurchaseAmount(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
 }
\ No newline at end of file
@@ -0,0 +1,23 @@
+package com.spring.boot.dto;
+
+import lombok.Data;
+
+//카테고리별 상품 통계(검색 화면 필터용)
+@Data
+public class CategoryFacetDTO {
+
+	private String category;
+	private int liveCount;//판매중인 상품 수
+	private int inStockCount;//재고가 있는 상품 수
+	private Integer minPrice;//판매중인 상품 최저가(상품이 없으면 null)
+	private Integer maxPrice;//판매중인 상품 최고가(상품이 없으면 null)
+
+	public CategoryFacetDTO(String category, int liveCount, int inStockCount, Integer minPrice, Integer maxPrice) {
+		this.category = category;
+		this.liveCount = liveCount;
+		this.inStockCount = inStockCount;
+		this.minPrice = minPrice;
+		this.maxPrice = maxPrice;
+	}
+
+}
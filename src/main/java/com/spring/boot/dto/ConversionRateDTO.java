@@ -0,0 +1,18 @@
+package com.spring.boot.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+//상품별 조회 대비 구매 전환율
+@Getter
+@AllArgsConstructor
+public class ConversionRateDTO {
+
+	private final Long productno;//상품고유번호
+	private final String pname;//상품명
+	private final long views;//조회수(아직 DB에 저장 안된 조회 포함)
+	private final long orderCount;//주문 건수
+	private final long quantity;//판매 수량
+	private final double conversionRate;//orderCount / views
+
+}
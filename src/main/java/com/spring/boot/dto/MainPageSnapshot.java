@@ -0,0 +1,53 @@
+package com.spring.boot.dto;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import lombok.Getter;
+
+//메인 화면 데이터(주기적으로 새로 만들어서 통째로 교체, 만든 뒤에는 변경하지 않음)
+//모든 사용자가 같이 쓰는 부분(최근 등록, 판매량 상위)과 카테고리별 추천 후보(판매 점수 내림차순)
+@Getter
+public class MainPageSnapshot {
+
+	private final List<ProductCardDTO> recentlyProducts;//최근 등록 상품 8개
+	private final List<ProductCardDTO> productListTop8;//판매량 상위 8개
+	private final Map<String, List<Candidate>> candidatesByCategory;//카테고리 -> 추천 후보(점수 내림차순)
+	private final long version;//만들 때마다 1씩 증가
+	private final long builtAt;//만든 시간(ms)
+	private final long generation;//만들 때의 상품/주문 변경 횟수(MainPageHtmlCache)
+
+	public MainPageSnapshot(List<ProductCardDTO> recentlyProducts, List<ProductCardDTO> productListTop8,
+			Map<String, List<Candidate>> candidatesByCategory, long version, long builtAt, long generation) {
+
+		this.recentlyProducts = Collections.unmodifiableList(recentlyProducts);
+		this.productListTop8 = Collections.unmodifiableList(productListTop8);
+		this.candidatesByCategory = Collections.unmodifiableMap(candidatesByCategory);
+		this.version = version;
+		this.builtAt = builtAt;
+		this.generation = generation;
+	}
+
+	//카테고리 추천 후보(카테고리가 없으면 빈 목록)
+	public List<Candidate> getCandidates(String category) {
+
+		List<Candidate> candidates = category == null ? null : candidatesByCategory.get(category);
+
+		return candidates != null ? candidates : Collections.<Candidate>emptyList();
+	}
+
+	//추천 후보 상품과 점수(카테고리 1위의 주문 건수를 1로 맞춘 값)
+	@Getter
+	public static class Candidate {
+
+		private final ProductCardDTO card;
+		private final double score;
+
+		public Candidate(ProductCardDTO card, double score) {
+			this.card = card;
+			this.score = score;
+		}
+	}
+
+}
@@ -0,0 +1,23 @@
+package com.spring.boot.dto;
+
+import java.util.List;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+//주문 후처리 내용(outbox_event.payload)
+//포인트/페이머니 사용내역, 적립내역 저장, 장바구니에서 주문 상품 삭제
+@Getter
+@Setter
+@NoArgsConstructor
+public class OrderCompletedEvent {
+
+	private Long userId;
+	private String orderName;// 주문명(내역에 "주문명 구매" 로 저장)
+	private int usedPoint;
+	private int usedPayMoney;
+	private int earnedPoint;
+	private List<Long> productIds;// 장바구니에서 삭제할 상품
+
+}
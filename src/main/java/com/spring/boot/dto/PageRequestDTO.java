@@ -18,6 +18,13 @@ public class PageRequestDTO {
     // 검색 처리를 위해 추가
     private String type;
     private String keyword;
+    
+    // keyset(커서) 페이징을 위해 추가
+    // null이면 기존 페이지 번호 방식, ""이면 커서 방식의 첫 페이지
+    private String cursor;
+    
+    // 커서 방식에서 전체 개수(count 쿼리)가 필요한 경우에만 true
+    private boolean withCount;
 
     //기본 생성자
     //기본 페이지는 첫 페이지, 한 페이지에 보여주는 데이터 9개
@@ -29,4 +36,8 @@ public class PageRequestDTO {
     public Pageable getPageable(Sort sort){
         return PageRequest.of(page -1, size, sort);
     }
+    
+    public boolean isKeyset(){
+        return cursor != null;
+    }
 }
\ No newline at end of file
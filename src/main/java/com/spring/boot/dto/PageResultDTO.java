@@ -1,5 +1,6 @@
 package com.spring.boot.dto;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -42,6 +43,12 @@ public class PageResultDTO <DTO,EN>{
  //컨텐츠가 존재하는지 여부 확인
  private boolean isEmpty;
  
+ // keyset(커서) 페이징 결과인지 여부
+ private boolean keyset;
+ 
+ // 다음 페이지를 조회할 커서(다음 페이지가 없으면 null)
+ private String nextCursor;
+ 
  // Function<EN,DTO> : 엔티티 객체들을 DTO로 변환해주는 기능
  public PageResultDTO(Page<EN> result, Function<EN,DTO> fn){
      dtoList = result.stream().map(fn).collect(Collectors.toList());
@@ -52,6 +59,27 @@ public class PageResultDTO <DTO,EN>{
      makePageList(result.getPageable());
  }
 
+ // keyset 페이징 결과용 생성자
+ // rows는 size + 1개까지 조회한 결과(한 개 더 있으면 다음 페이지가 있음)
+ // total은 count 쿼리를 하지 않은 경우 null
+ public PageResultDTO(List<EN> rows, int size, Function<EN,DTO> fn, Function<EN,String> cursorFn, Long total){
+     List<EN> content = rows.size() > size ? rows.subList(0, size) : rows;
+
+     dtoList = content.stream().map(fn).collect(Collectors.toList());
+     isEmpty = content.isEmpty();
+     keyset = true;
+     this.size = size;
+     page = 1;
+
+     next = rows.size() > size;
+     nextCursor = next ? cursorFn.apply(content.get(content.size() - 1)) : null;
+
+     totalElements = total != null ? total : dtoList.size();
+     totalPages = total != null ? (int) Math.ceil((double) total / size) : 0;
+
+     pageList = new ArrayList<>();
+ }
+
  private void makePageList(Pageable pageable){
      this.page = pageable.getPageNumber() + 1 ; // 0부터 시작하므로 1을 더해준다
      this.size = pageable.getPageSize();
@@ -0,0 +1,39 @@
+package com.spring.boot.dto;
+
+import java.util.Date;
+
+import lombok.Getter;
+
+//검색/메인 화면의 상품 카드에 필요한 컬럼만 담는 조회용 DTO
+//판매자(SiteUser)와 리뷰 목록은 가져오지 않음
+@Getter
+public class ProductCardDTO {
+
+	private final Long id;
+	private final String category;//상품 카테고리
+	private final String pname;//상품명
+	private final String content;//상품설명
+	private final Integer price;//상품가격
+	private final Date date;//상품등록일
+	private final Integer stock;//상품재고
+	private final boolean selling;//상품판매여부
+	private final String image;//대표이미지
+	private final long views;//조회수
+
+	//JPQL/Criteria의 constructor expression에서 사용
+	public ProductCardDTO(Long id, String category, String pname, String content, Integer price,
+			Date date, Integer stock, boolean selling, String image, long views) {
+
+		this.id = id;
+		this.category = category;
+		this.pname = pname;
+		this.content = content;
+		this.price = price;
+		this.date = date;
+		this.stock = stock;
+		this.selling = selling;
+		this.image = image;
+		this.views = views;
+	}
+
+}
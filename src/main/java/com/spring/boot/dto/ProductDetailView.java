@@ -0,0 +1,45 @@
+package com.spring.boot.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Page;
+
+import com.spring.boot.model.Product;
+import com.spring.boot.model.Question;
+import com.spring.boot.model.Review;
+import com.spring.boot.model.SiteUser;
+
+import lombok.Getter;
+
+//상품 상세 화면에 필요한 데이터를 한번에 모아둔 객체
+//캐시에 저장되므로 화면에서 쓰는 lazy 컬렉션(질문의 답변 목록)은 미리 초기화해서 담는다
+@Getter
+public class ProductDetailView {
+
+	private final Product product;//상품(판매자 포함)
+	private final SiteUser seller;//판매자
+	private final LocalDateTime localDateTime;//상품등록일
+	private final List<ProductCardDTO> sellerProducts;//판매자의 다른 상품(최신순, 개수 제한)
+	private final List<ProductCardDTO> boughtTogether;//함께 구매한 상품(동시구매 횟수순)
+	private final Page<Review> reviews;//상품리뷰 첫 페이지
+	private final Page<Question> questions;//상품문의 첫 페이지
+	private final long version;//만들 때의 상품 버전(캐시 검증용)
+	private final boolean complete;//모든 영역을 시간 안에 조회했는지(false면 캐시하지 않음)
+
+	public ProductDetailView(Product product, LocalDateTime localDateTime, List<ProductCardDTO> sellerProducts,
+			List<ProductCardDTO> boughtTogether, Page<Review> reviews, Page<Question> questions, long version,
+			boolean complete) {
+
+		this.product = product;
+		this.seller = product.getUser();
+		this.localDateTime = localDateTime;
+		this.sellerProducts = sellerProducts;
+		this.boughtTogether = boughtTogether;
+		this.reviews = reviews;
+		this.questions = questions;
+		this.version = version;
+		this.complete = complete;
+	}
+
+}
@@ -0,0 +1,15 @@
+package com.spring.boot.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+//상품별 재구매 통계
+@Getter
+@AllArgsConstructor
+public class RepeatBuyerStatsDTO {
+
+	private final int buyers;//구매자 수(중복 제외)
+	private final int repeatBuyers;//기준 횟수 이상 구매한 구매자 수
+	private final double repurchaseRate;//repeatBuyers / buyers
+
+}
@@ -0,0 +1,19 @@
+package com.spring.boot.dto;
+
+import lombok.Data;
+
+//검색창 자동완성 항목
+@Data
+public class SuggestionDTO {
+
+	private String label;//화면에 보여줄 문구
+	private String keyword;//선택했을 때 검색할 keyword(카테고리는 "c_카테고리")
+	private String type;//product 또는 category
+
+	public SuggestionDTO(String label, String keyword, String type) {
+		this.label = label;
+		this.keyword = keyword;
+		this.type = type;
+	}
+
+}
@@ -0,0 +1,34 @@
+package com.spring.boot.model;
+
+import java.time.LocalDateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+//주문 처리 결과(주문번호 merchant_uid 당 한 행)
+//결제창이 같은 주문을 다시 보내면 주문 처리를 반복하지 않고 저장된 결과를 그대로 돌려줌
+@Getter
+@Setter
+@Entity
+@Table(name = "checkout_result")
+@NoArgsConstructor
+public class CheckoutResult {
+
+	@Id
+	@Column(length = 64)
+	private String merchantUid;// 주문번호(PaymentDataForm.merchant_uid)
+
+	private Long userId;// 주문한 사용자(SiteUser.id)
+
+	@Column(columnDefinition = "TEXT")
+	private String resultJson;// 주문 결과(List<OrderResultForm>) JSON
+
+	private LocalDateTime createdAt;
+
+}
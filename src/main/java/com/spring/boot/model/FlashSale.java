@@ -0,0 +1,29 @@
+package com.spring.boot.model;
+
+import java.time.LocalDateTime;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+//타임딜(플래시 세일) 진행 중인 상품
+//진행 중에는 재고를 메모리 예약 장부(FlashSaleLedger)에서 관리하고 DB 재고는 모아서 주기적으로 감소
+@Getter
+@Setter
+@Entity
+@Table(name = "flash_sale")
+@NoArgsConstructor
+public class FlashSale {
+
+	@Id
+	private Long productno;// 상품고유번호
+
+	private LocalDateTime startAt;// 시작 시간
+
+	private LocalDateTime endAt;// 종료 시간
+
+}
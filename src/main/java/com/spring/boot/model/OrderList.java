@@ -1,10 +1,15 @@
 package com.spring.boot.model;
 
+import java.time.LocalDateTime;
+
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.ManyToOne;
+import javax.persistence.TableGenerator;
+
+import com.spring.boot.config.IdGeneratorSeeder;
 
 import lombok.Getter;
 import lombok.Setter;
@@ -15,7 +20,9 @@ import lombok.Setter;
 public class OrderList {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.TABLE, generator = "order_list_id")
+	@TableGenerator(name = "order_list_id", table = IdGeneratorSeeder.TABLE, pkColumnName = "seq_name", valueColumnName = "next_val",
+			pkColumnValue = "order_list", allocationSize = IdGeneratorSeeder.ALLOCATION_SIZE)
 	private Long Id;
 
 	private String orderNo;
@@ -45,4 +52,6 @@ public class OrderList {
 	private String addr_detail;
 
 	private String request;
+
+	private LocalDateTime orderDate;// 주문시간(트렌드 순위 계산에 사용, 이전 주문은 null)
 }
@@ -0,0 +1,54 @@
+package com.spring.boot.model;
+
+import java.time.LocalDateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+//주문 후처리 대기열(트랜잭셔널 아웃박스)
+//주문 트랜잭션 안에서 한 행을 저장하고, 커밋된 뒤 OrderOutbox 작업 스레드가 꺼내서 처리한 뒤 삭제
+//처리에 실패하면 attempts를 올리고 nextAttemptAt 이후에 다시 처리
+//작업 스레드는 처리할 행을 짧은 UPDATE로 자기 몫(lockedBy)으로 표시한 뒤 행 잠금 없이 처리
+@Getter
+@Setter
+@Entity
+@Table(name = "outbox_event", indexes = { @Index(name = "idx_outbox_next_attempt", columnList = "next_attempt_at, id"),
+		@Index(name = "idx_outbox_locked_by", columnList = "locked_by") })
+@NoArgsConstructor
+public class OutboxEvent {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Column(length = 50, nullable = false)
+	private String type;// 처리 종류(OrderOutbox.ORDER_COMPLETED)
+
+	@Column(columnDefinition = "TEXT", nullable = false)
+	private String payload;// 처리할 내용 JSON
+
+	private int attempts;// 실패 횟수
+
+	@Column(name = "next_attempt_at", nullable = false)
+	private LocalDateTime nextAttemptAt;// 이 시간 이후에 처리(처리 중이면 lockedUntil과 같음)
+
+	@Column(name = "locked_by", length = 64)
+	private String lockedBy;// 처리 중인 작업(가져갈 때마다 새로 만든 값)
+
+	private LocalDateTime lockedUntil;// 이 시간까지 처리가 끝나지 않으면 다른 작업이 다시 가져감
+
+	@Column(length = 500)
+	private String lastError;// 마지막 실패 사유
+
+	private LocalDateTime createdAt;
+
+}
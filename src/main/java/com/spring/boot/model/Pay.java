@@ -9,9 +9,12 @@ import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.ManyToOne;
 import javax.persistence.Table;
+import javax.persistence.TableGenerator;
 import javax.persistence.Temporal;
 import javax.persistence.TemporalType;
 
+import com.spring.boot.config.IdGeneratorSeeder;
+
 import lombok.Getter;
 import lombok.Setter;
 
@@ -25,7 +28,9 @@ public class Pay {
 	private SiteUser user;
 	
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.TABLE, generator = "pay_id")
+	@TableGenerator(name = "pay_id", table = IdGeneratorSeeder.TABLE, pkColumnName = "seq_name", valueColumnName = "next_val",
+			pkColumnValue = "pay", allocationSize = IdGeneratorSeeder.ALLOCATION_SIZE)
     private Long id;
 
     @Column(name = "paymoney")
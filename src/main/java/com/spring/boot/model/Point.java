@@ -8,9 +8,12 @@ import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.ManyToOne;
+import javax.persistence.TableGenerator;
 import javax.persistence.Temporal;
 import javax.persistence.TemporalType;
 
+import com.spring.boot.config.IdGeneratorSeeder;
+
 import lombok.Getter;
 import lombok.Setter;
 
@@ -24,7 +27,9 @@ public class Point {
 	private SiteUser user;
 	
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.TABLE, generator = "point_id")
+	@TableGenerator(name = "point_id", table = IdGeneratorSeeder.TABLE, pkColumnName = "seq_name", valueColumnName = "next_val",
+			pkColumnValue = "point", allocationSize = IdGeneratorSeeder.ALLOCATION_SIZE)
     private Long id;
 
     @Column(name = "point")
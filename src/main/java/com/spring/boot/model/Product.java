@@ -11,12 +11,14 @@ import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.NamedAttributeNode;
 import javax.persistence.NamedEntityGraph;
 import javax.persistence.OneToMany;
 import javax.persistence.PrePersist;
+import javax.persistence.Table;
 import javax.persistence.Temporal;
 import javax.persistence.TemporalType;
 
@@ -30,6 +32,8 @@ import lombok.Setter;
 @Entity
 @NamedEntityGraph(name = "Product.withAll", attributeNodes = { @NamedAttributeNode("user"),
 		@NamedAttributeNode("reviewList") })
+// 조회 많은순 검색(views desc, id desc keyset)이 상품 전체를 정렬하지 않도록
+@Table(indexes = @Index(name = "idx_product_views_id", columnList = "views, id"))
 @NoArgsConstructor
 public class Product {
 
@@ -66,6 +70,11 @@ public class Product {
 	private String image2;// 이미지2
 	private String image3;// 이미지3
 
+	// 조회수 - ProductViewCounter가 모아서 views = views + n 으로만 증가시킴
+	// 상품 수정시 엔티티에 읽어둔 예전 값으로 덮어쓰지 않도록 insert/update 에서 제외
+	@Column(insertable = false, updatable = false, columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+	private long views;
+
 	// review fk랑연결
 	@OneToMany(mappedBy = "product", cascade = CascadeType.REMOVE, fetch = FetchType.LAZY)
 	private List<Review> reviewList;
@@ -0,0 +1,30 @@
+package com.spring.boot.model;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Table;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+//상품별 구매자의 구매 횟수
+//재구매 통계(같은 사람이 n번 이상 산 상품)를 주문내역 GROUP BY 없이 유지하기 위한 집계
+@Getter
+@Setter
+@Entity
+@Table(name = "product_buyer")
+@IdClass(ProductBuyerId.class)
+@NoArgsConstructor
+public class ProductBuyer {
+
+	@Id
+	private Long productno;// 상품고유번호
+
+	@Id
+	private Long userId;// 구매자(SiteUser.id)
+
+	private int purchaseCount;// 이 상품을 주문한 횟수(OrderList 건수)
+
+}
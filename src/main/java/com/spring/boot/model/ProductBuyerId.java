@@ -0,0 +1,23 @@
+package com.spring.boot.model;
+
+import java.io.Serializable;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+//ProductBuyer 복합키(상품번호 + 구매자 id)
+@Getter
+@EqualsAndHashCode
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductBuyerId implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private Long productno;
+
+	private Long userId;
+
+}
@@ -0,0 +1,27 @@
+package com.spring.boot.model;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+//상품별 누적 판매 집계
+//주문 저장시 같이 증가시켜서 베스트 상품 조회때 OrderList 전체를 GROUP BY 하지 않도록 함
+@Getter
+@Setter
+@Entity
+@Table(name = "product_sales")
+@NoArgsConstructor
+public class ProductSales {
+
+	@Id
+	private Long productno;// 상품고유번호(OrderList.productno)
+
+	private long quantity;// 누적 판매 수량 SUM(count)
+
+	private long orderCount;// 누적 주문 건수 COUNT(*)
+
+}
@@ -0,0 +1,31 @@
+package com.spring.boot.model;
+
+import java.time.LocalDateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+//사용자별 최근 본 상품
+//상품번호 목록을 한 행(8바이트씩 이어붙인 바이너리)으로 저장해서 조회할 때마다 쓰지 않고 주기적으로 한번에 저장
+@Getter
+@Setter
+@Entity
+@Table(name = "recent_view")
+@NoArgsConstructor
+public class RecentView {
+
+	@Id
+	private Long userId;// 사용자(SiteUser.id)
+
+	@Column(columnDefinition = "VARBINARY(800)")
+	private byte[] productIds;// 최근 본 순서대로 상품번호(long 8바이트씩)
+
+	private LocalDateTime updatedAt;
+
+}
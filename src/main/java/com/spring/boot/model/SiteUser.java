@@ -105,6 +105,12 @@ public class SiteUser implements Serializable{
 	//멤버 등급
 	private String grade;
 
+	//누적 구매금액(등급 계산용) - 주문때 purchase_amount = purchase_amount + n 으로만 증가시킴
+	//NULL이면 아직 기존 주문내역으로 채우지 않은 사용자(PurchaseAmountBackfill)
+	//회원정보 수정시 엔티티에 읽어둔 예전 값으로 덮어쓰지 않도록 insert/update 에서 제외
+	@Column(insertable = false, updatable = false, columnDefinition = "BIGINT DEFAULT NULL")
+	private Long purchaseAmount;
+
 	@Column(columnDefinition = "TINYINT(1) default 0")
 	private boolean membership;
 	
@@ -18,6 +18,7 @@ import lombok.RequiredArgsConstructor;
 public class AnswerService {
 	
 	private final AnswerRepository answerRepository;
+	private final ProductDetailCache productDetailCache;
 	
 	//답변등록
 	public Answer answerCreate(Question question, String content, SiteUser siteUser) {
@@ -29,6 +30,7 @@ public class AnswerService {
 		answer.setUser(siteUser);
 		
 		answerRepository.save(answer);
+		productDetailCache.evict(question.getProduct().getId());//상세 화면 캐시 삭제
 		
 		return answer;
 	}
@@ -60,14 +60,33 @@ public class CartItemService {
 	public void deleteBuyItems(PaymentDataForm paymentDateForm, SiteUser user) {
 		
 		List<ItemDataForm> lists = paymentDateForm.getItemIds();
-		Cart cart = cartRepository.findByUserId(user.getId());
+		List<Long> productIds = new ArrayList<>();
 		
 		for(ItemDataForm data : lists) {
-			Product product = productRepository.findById(data.getId()).get();
-			
-			cartItemRepository.deleteByProductAndCart(product, cart);
+			productIds.add(data.getId());
+		}
+		
+		deleteBuyItems(user.getId(), productIds);
+		
+	}
+	
+	//주문 후처리(OrderOutbox)에서 호출
+	@Transactional
+	public void deleteBuyItems(Long userId, List<Long> productIds) {
+		
+		if(productIds == null || productIds.isEmpty()) {
+			return;
+		}
+		
+		Cart cart = cartRepository.findByUserId(userId);
+		
+		if(cart == null) {
+			return;
 		}
 		
+		//상품마다 조회/삭제하지 않고 한번에 삭제
+		cartItemRepository.deleteByCartIdAndProductIds(cart.getId(), productIds);
+		
 	}
 	
 
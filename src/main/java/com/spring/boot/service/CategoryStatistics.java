@@ -0,0 +1,159 @@
+package com.spring.boot.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.spring.boot.dao.ProductRepository;
+import com.spring.boot.dto.CategoryFacetDTO;
+import com.spring.boot.model.Product;
+
+import lombok.RequiredArgsConstructor;
+
+//ProductSpecification의 카테고리별 상품 수, 재고 있는 상품 수, 최저가/최고가
+//서버 시작시 한번 집계하고 이후에는 상품 등록/수정/재고변경 때마다 변경분만 반영
+//검색 화면에서 GROUP BY 쿼리 없이 바로 사용
+@Component
+@RequiredArgsConstructor
+public class CategoryStatistics {
+
+	private final ProductRepository productRepository;
+
+	// 카테고리 -> 통계
+	private final Map<String, Stats> statsByCategory = new HashMap<>();
+
+	// 상품 id -> 마지막으로 반영한 상품 상태(변경 전 값을 빼기 위해 보관)
+	private final Map<Long, ProductState> states = new HashMap<>();
+
+	// 읽기용 결과(쓰기 때마다 새로 만들어서 교체)
+	private volatile List<CategoryFacetDTO> facets = Collections.emptyList();
+
+	@EventListener(ApplicationReadyEvent.class)
+	public synchronized void rebuild() {
+
+		statsByCategory.clear();
+		states.clear();
+
+		for (String category : ProductSpecification.getCategories()) {
+			statsByCategory.put(category, new Stats());
+		}
+
+		for (Object[] row : productRepository.findCategoryStates()) {
+			ProductState state = new ProductState((String) row[1], (Integer) row[2], (Integer) row[3],
+					Boolean.TRUE.equals(row[4]));
+
+			states.put((Long) row[0], state);
+			add(state);
+		}
+
+		publish();
+	}
+
+	//상품 등록/수정/재고변경시 호출
+	public synchronized void apply(Product product) {
+
+		if (product == null || product.getId() == null) {
+			return;
+		}
+
+		ProductState before = states.get(product.getId());
+		ProductState after = new ProductState(product.getCategory(), product.getPrice(), product.getStock(),
+				product.isSelling());
+
+		if (before != null) {
+			remove(before);
+		}
+
+		states.put(product.getId(), after);
+		add(after);
+
+		publish();
+	}
+
+	//카테고리 순서대로 통계 반환
+	public List<CategoryFacetDTO> getFacets() {
+		return facets;
+	}
+
+	private void add(ProductState state) {
+
+		Stats stats = statsByCategory.get(state.category);
+
+		if (stats == null || !state.selling) {
+			return;
+		}
+
+		stats.liveCount++;
+
+		if (state.stock != null && state.stock > 0) {
+			stats.inStockCount++;
+		}
+
+		if (state.price != null) {
+			stats.prices.merge(state.price, 1, Integer::sum);
+		}
+	}
+
+	private void remove(ProductState state) {
+
+		Stats stats = statsByCategory.get(state.category);
+
+		if (stats == null || !state.selling) {
+			return;
+		}
+
+		stats.liveCount--;
+
+		if (state.stock != null && state.stock > 0) {
+			stats.inStockCount--;
+		}
+
+		if (state.price != null) {
+			stats.prices.computeIfPresent(state.price, (price, count) -> count > 1 ? count - 1 : null);
+		}
+	}
+
+	private void publish() {
+
+		List<CategoryFacetDTO> list = new ArrayList<>();
+
+		for (String category : ProductSpecification.getCategories()) {
+			Stats stats = statsByCategory.get(category);
+
+			list.add(new CategoryFacetDTO(category, stats.liveCount, stats.inStockCount,
+					stats.prices.isEmpty() ? null : stats.prices.firstKey(),
+					stats.prices.isEmpty() ? null : stats.prices.lastKey()));
+		}
+
+		facets = Collections.unmodifiableList(list);
+	}
+
+	private static class Stats {
+		private int liveCount;
+		private int inStockCount;
+		// 가격 -> 상품 수(최저가/최고가를 O(log n)으로 유지)
+		private final TreeMap<Integer, Integer> prices = new TreeMap<>();
+	}
+
+	private static class ProductState {
+		private final String category;
+		private final Integer price;
+		private final Integer stock;
+		private final boolean selling;
+
+		private ProductState(String category, Integer price, Integer stock, boolean selling) {
+			this.category = category;
+			this.price = price;
+			this.stock = stock;
+			this.selling = selling;
+		}
+	}
+
+}
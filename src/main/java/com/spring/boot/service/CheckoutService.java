@@ -0,0 +1,151 @@
+package com.spring.boot.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spring.boot.dao.CheckoutResultRepository;
+import com.spring.boot.dto.ItemDataForm;
+import com.spring.boot.dto.OrderCompletedEvent;
+import com.spring.boot.dto.OrderResultForm;
+import com.spring.boot.dto.PaymentDataForm;
+import com.spring.boot.model.OrderList;
+import com.spring.boot.model.Product;
+import com.spring.boot.model.SiteUser;
+
+import lombok.RequiredArgsConstructor;
+
+//결제 완료 후 주문 처리(재고 감소, 주문내역, 적립/등급, 주문 후처리 대기열 저장)
+//장바구니 삭제, 포인트/페이머니 내역은 주문과 같이 커밋되는 대기열(OrderOutbox)에 남기고 응답 후에 처리
+//한 트랜잭션에서 처리하고, 주문 상품은 판매자와 함께 한번에 조회해서 상품마다 다시 조회하지 않음
+//주문내역 INSERT와 재고 UPDATE는 커밋 때 JDBC 배치로 모아서 전송
+//merchant_uid를 키로 한번만 처리(재시도는 저장된 결과 반환)
+@Service
+@RequiredArgsConstructor
+public class CheckoutService {
+
+	private final ProductService productService;
+	private final OrderListService orderListService;
+	private final UserService userService;
+	private final FlashSaleLedger flashSaleLedger;
+	private final OrderOutbox orderOutbox;
+	private final CheckoutResultRepository checkoutResultRepository;
+	private final ObjectMapper objectMapper;
+
+	@Transactional
+	public List<OrderResultForm> checkout(PaymentDataForm paymentDataForm, SiteUser user) {
+
+		String merchantUid = paymentDataForm.getMerchant_uid();
+
+		//같은 주문번호로 다시 요청하면(결제창 재시도) 다시 처리하지 않고 저장된 결과 반환
+		if (merchantUid != null && !merchantUid.isEmpty()
+				&& checkoutResultRepository.claim(merchantUid, user.getId(), LocalDateTime.now()) == 0) {
+			return getPreviousResult(merchantUid, user);
+		}
+
+		//주문 상품 + 판매자 한번에 조회
+		Map<Long, Product> products = productService.getProductsWithSeller(paymentDataForm.getItemIds());
+
+		//타임딜 상품은 결제 전에 예약한 재고를 확정(DB 재고는 모아서 감소), 나머지 상품은 DB 재고 감소
+		List<ItemDataForm> dbItems = flashSaleLedger.confirm(user.getId(), paymentDataForm.getItemIds(), products);
+		productService.updateProductStock(dbItems, products);
+		flashSaleLedger.checkNotStarted(dbItems, products);
+
+		//orderlist(구매내역테이블 저장)
+		List<OrderList> orderLists = orderListService.saveOrderHistory(paymentDataForm, user, products);
+
+		int point = paymentDataForm.getPointPay();
+		int payMoney = paymentDataForm.getPayMoney();
+
+		//이번 주문 금액(누적 구매금액에 더해서 등급 계산)
+		int orderAmount = 0;
+
+		for (OrderList orderList : orderLists) {
+			orderAmount += orderList.getPrice();
+		}
+
+		//적립금,페이머니,등급조정
+		int getPoint = userService.updateAfterOrder(user, point, payMoney, paymentDataForm.getPaid_amount(), orderAmount,
+				getAccumulateRate(user));
+
+		//포인트/페이머니 사용내역, 적립내역 저장과 장바구니 삭제는 커밋 후 작업 스레드가 처리(응답을 기다리게 하지 않음)
+		List<Long> productIds = new ArrayList<>();
+
+		for (ItemDataForm item : paymentDataForm.getItemIds()) {
+			productIds.add(item.getId());
+		}
+
+		OrderCompletedEvent event = new OrderCompletedEvent();
+		event.setUserId(user.getId());
+		event.setOrderName(paymentDataForm.getName());
+		event.setUsedPoint(point);
+		event.setUsedPayMoney(payMoney);
+		event.setEarnedPoint(getPoint);
+		event.setProductIds(productIds);
+
+		orderOutbox.publish(event);
+
+		//주문번호,상품이름,이미지,판매자id,수량,가격 담아놓음(이미 조회한 상품/판매자 사용)
+		List<OrderResultForm> paymentsData = productService.getResultForm(orderLists, products);
+
+		//재시도때 돌려줄 결과 저장(주문과 같은 트랜잭션)
+		if (merchantUid != null && !merchantUid.isEmpty()) {
+			try {
+				checkoutResultRepository.saveResult(merchantUid, objectMapper.writeValueAsString(paymentsData));
+			} catch (JsonProcessingException e) {
+				throw new IllegalStateException("주문 결과 저장 실패", e);
+			}
+		}
+
+		return paymentsData;
+	}
+
+	//이미 처리된 주문번호의 결과
+	private List<OrderResultForm> getPreviousResult(String merchantUid, SiteUser user) {
+
+		String resultJson = checkoutResultRepository.findResultJson(merchantUid, user.getId());
+
+		//다른 사용자의 주문번호
+		if (resultJson == null) {
+			throw new IllegalStateException("이미 사용된 주문번호입니다");
+		}
+
+		try {
+			return objectMapper.readValue(resultJson, new TypeReference<List<OrderResultForm>>() {});
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("주문 결과 읽기 실패", e);
+		}
+	}
+
+	//구매등급,멤버쉽에따라 포인트적립
+	//적립율 기본1,실버3,골드5,플래티넘8 , 멤버쉽가입시 추가10퍼센트 적립
+	private int getAccumulateRate(SiteUser user) {
+
+		int accumulate = 1;
+
+		switch (user.getGrade()) {
+		case "P":
+			accumulate = 8;
+			break;
+		case "G":
+			accumulate = 5;
+			break;
+		case "S":
+			accumulate = 3;
+			break;
+		}
+		if (user.isMembership()) {
+			accumulate += 10;
+		}
+
+		return accumulate;
+	}
+
+}
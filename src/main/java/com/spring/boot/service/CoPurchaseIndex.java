@@ -0,0 +1,200 @@
+package com.spring.boot.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.spring.boot.dao.OrderListRepository;
+import com.spring.boot.util.LongIntHashMap;
+
+import lombok.RequiredArgsConstructor;
+
+//함께 구매한 상품(같은 주문번호 orderNo로 같이 주문된 상품)
+//배치: 주문내역을 orderNo 순서로 스트리밍하면서 장바구니 단위로 상품 x 상품 동시구매 횟수를 집계
+//상품마다 횟수 상위 N개만 남겨서 배열(CSR) 형태로 보관하고 통째로 교체
+@Component
+@RequiredArgsConstructor
+public class CoPurchaseIndex {
+
+	//상품마다 남길 함께 구매한 상품 수
+	@Value("${copurchase.top-n:8}")
+	private int topN;
+
+	//이 횟수 이상 같이 구매된 경우만 사용
+	@Value("${copurchase.min-support:1}")
+	private int minSupport;
+
+	//한 주문에 상품이 너무 많으면 조합 수가 커지므로 앞에서부터 이 개수까지만 사용
+	@Value("${copurchase.max-basket-size:50}")
+	private int maxBasketSize;
+
+	private final OrderListRepository orderListRepository;
+	private final PlatformTransactionManager transactionManager;
+
+	private volatile Table table = Table.EMPTY;
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void onReady() {
+		rebuild();
+	}
+
+	//매일 새벽에 다시 집계
+	@Scheduled(cron = "${copurchase.cron:0 30 3 * * *}")
+	public void rebuild() {
+
+		TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+		transactionTemplate.setReadOnly(true);
+
+		Map<Long, LongIntHashMap> matrix = transactionTemplate.execute(status -> {
+
+			Map<Long, LongIntHashMap> counts = new HashMap<>();
+
+			try (Stream<Object[]> rows = orderListRepository.streamBaskets()) {
+
+				Iterator<Object[]> iterator = rows.iterator();
+				String currentOrderNo = null;
+				long[] basket = new long[maxBasketSize];
+				int basketSize = 0;
+
+				while (iterator.hasNext()) {
+					Object[] row = iterator.next();
+					String orderNo = (String) row[0];
+					long productno = (Long) row[1];
+
+					if (!orderNo.equals(currentOrderNo)) {
+						count(counts, basket, basketSize);
+						currentOrderNo = orderNo;
+						basketSize = 0;
+					}
+
+					if (basketSize < basket.length && !contains(basket, basketSize, productno)) {
+						basket[basketSize++] = productno;
+					}
+				}
+
+				count(counts, basket, basketSize);
+			}
+
+			return counts;
+		});
+
+		table = Table.build(matrix, topN, minSupport);
+	}
+
+	//함께 구매한 상품번호(횟수 많은 순)
+	public List<Long> getBoughtTogether(long productno, int limit) {
+		return table.neighbors(productno, limit);
+	}
+
+	//한 주문 안의 상품 쌍마다 양쪽으로 1씩 증가
+	private void count(Map<Long, LongIntHashMap> counts, long[] basket, int basketSize) {
+
+		for (int i = 0; i < basketSize; i++) {
+			LongIntHashMap row = counts.computeIfAbsent(basket[i], k -> new LongIntHashMap());
+
+			for (int j = 0; j < basketSize; j++) {
+				if (i != j) {
+					row.add(basket[j], 1);
+				}
+			}
+		}
+	}
+
+	private boolean contains(long[] basket, int basketSize, long productno) {
+
+		for (int i = 0; i < basketSize; i++) {
+			if (basket[i] == productno) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	//상품번호 정렬 배열 + 상품별 시작 위치 + 함께 구매한 상품/횟수 배열
+	//productIds[i]의 이웃은 neighbors[offsets[i] ~ offsets[i+1]-1] (횟수 내림차순)
+	private static final class Table {
+
+		private static final Table EMPTY = new Table(new long[0], new int[] { 0 }, new long[0], new int[0]);
+
+		private final long[] productIds;
+		private final int[] offsets;
+		private final long[] neighbors;
+		private final int[] counts;
+
+		private Table(long[] productIds, int[] offsets, long[] neighbors, int[] counts) {
+			this.productIds = productIds;
+			this.offsets = offsets;
+			this.neighbors = neighbors;
+			this.counts = counts;
+		}
+
+		private static Table build(Map<Long, LongIntHashMap> matrix, int topN, int minSupport) {
+
+			long[] productIds = new long[matrix.size()];
+			int n = 0;
+
+			for (Long productno : matrix.keySet()) {
+				productIds[n++] = productno;
+			}
+			Arrays.sort(productIds);
+
+			int[] offsets = new int[productIds.length + 1];
+			long[] neighbors = new long[productIds.length * topN];
+			int[] counts = new int[productIds.length * topN];
+			int position = 0;
+
+			for (int i = 0; i < productIds.length; i++) {
+				offsets[i] = position;
+
+				List<long[]> candidates = new ArrayList<>();
+
+				matrix.get(productIds[i]).forEach((neighbor, count) -> {
+					if (count >= minSupport) {
+						candidates.add(new long[] { neighbor, count });
+					}
+				});
+
+				//횟수 내림차순, 같으면 상품번호 오름차순
+				candidates.sort((a, b) -> a[1] != b[1] ? Long.compare(b[1], a[1]) : Long.compare(a[0], b[0]));
+
+				for (int j = 0; j < candidates.size() && j < topN; j++) {
+					neighbors[position] = candidates.get(j)[0];
+					counts[position] = (int) candidates.get(j)[1];
+					position++;
+				}
+			}
+			offsets[productIds.length] = position;
+
+			return new Table(productIds, offsets, Arrays.copyOf(neighbors, position), Arrays.copyOf(counts, position));
+		}
+
+		private List<Long> neighbors(long productno, int limit) {
+
+			List<Long> result = new ArrayList<>();
+			int index = Arrays.binarySearch(productIds, productno);
+
+			if (index < 0) {
+				return result;
+			}
+
+			for (int i = offsets[index]; i < offsets[index + 1] && result.size() < limit; i++) {
+				result.add(neighbors[i]);
+			}
+
+			return result;
+		}
+	}
+
+}
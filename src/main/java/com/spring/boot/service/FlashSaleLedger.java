@@ -0,0 +1,453 @@
+package com.spring.boot.service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.spring.boot.config.OutOfStockException;
+import com.spring.boot.dao.FlashSaleRepository;
+import com.spring.boot.dao.ProductRepository;
+import com.spring.boot.dto.ItemDataForm;
+import com.spring.boot.model.FlashSale;
+import com.spring.boot.model.Product;
+import com.spring.boot.util.TransactionUtil;
+
+import lombok.RequiredArgsConstructor;
+
+//타임딜(플래시 세일) 재고 예약 장부
+//타임딜 상품은 주문마다 product 행을 잠그지 않도록 시작할 때 DB 재고를 메모리 카운터(여러 칸으로 나눔)에 옮겨두고
+//결제 전 재고 확인때 수량을 예약(결제가 끝나지 않으면 만료되어 되돌아감) -> 주문 저장때 예약을 확정
+//확정된 판매 수량은 상품별로 모아서 주기적으로 한번에 DB 재고에서 뺌(초당 몇 번만 UPDATE)
+@Component
+@RequiredArgsConstructor
+public class FlashSaleLedger {
+
+	//상품마다 재고를 나눠 담을 칸 수(칸마다 따로 CAS 하므로 경합이 줄어듦)
+	@Value("${flashsale.shards:8}")
+	private int shardCount;
+
+	//결제 전 예약 유지 시간
+	@Value("${flashsale.reservation-ttl-seconds:300}")
+	private long reservationTtlSeconds;
+
+	//종료할 때 확정 중인 주문의 트랜잭션이 끝나기를 기다리는 최대 시간
+	@Value("${flashsale.close-wait-millis:10000}")
+	private long closeWaitMillis;
+
+	private final FlashSaleRepository flashSaleRepository;
+	private final ProductRepository productRepository;
+	private final ProductDetailCache productDetailCache;
+	private final TransactionTemplate transactionTemplate;
+
+	// 상품번호 -> 진행 중인 타임딜
+	private final ConcurrentHashMap<Long, Sale> sales = new ConcurrentHashMap<>();
+
+	// "사용자id:상품번호" -> 결제 전 예약
+	private final ConcurrentHashMap<String, Reservation> reservations = new ConcurrentHashMap<>();
+
+	// 상품번호 -> 확정됐지만 아직 DB 재고에서 빼지 않은 수량
+	private final ConcurrentHashMap<Long, AtomicLong> confirmed = new ConcurrentHashMap<>();
+
+	//서버 시작시 끝나지 않은 타임딜 다시 시작(재고는 DB에서 다시 읽음)
+	@EventListener(ApplicationReadyEvent.class)
+	public void onReady() {
+
+		for (FlashSale flashSale : flashSaleRepository.findByEndAtAfter(LocalDateTime.now())) {
+			open(flashSale.getProductno(), flashSale.getEndAt());
+		}
+	}
+
+	//타임딜 시작(이미 진행 중이면 종료 시간만 변경)
+	public void start(Long productno, LocalDateTime endAt) {
+
+		transactionTemplate.execute(status -> {
+			FlashSale flashSale = flashSaleRepository.findById(productno).orElseGet(FlashSale::new);
+			flashSale.setProductno(productno);
+			flashSale.setStartAt(LocalDateTime.now());
+			flashSale.setEndAt(endAt);
+			return flashSaleRepository.save(flashSale);
+		});
+
+		open(productno, endAt);
+	}
+
+	//타임딜 종료(남은 예약은 버리고 이후 주문은 DB 재고로 처리)
+	public void stop(Long productno) {
+
+		close(productno);
+
+		transactionTemplate.execute(status -> {
+			if (flashSaleRepository.existsById(productno)) {
+				flashSaleRepository.deleteById(productno);
+			}
+			return null;
+		});
+	}
+
+	public boolean isFlashSale(Long productno) {
+		return sales.containsKey(productno);
+	}
+
+	//예약 가능한 남은 수량(타임딜이 아니면 -1)
+	public int getAvailable(Long productno) {
+
+		Sale sale = sales.get(productno);
+
+		return sale == null ? -1 : sale.available();
+	}
+
+	//결제 전 재고 확인때 타임딜 상품 수량 예약(하나라도 부족하면 이번에 예약한 것 모두 취소하고 false)
+	//같은 사용자가 같은 상품을 다시 확인하면 이전 예약을 새 수량으로 교체
+	public boolean reserve(Long userId, List<ItemDataForm> items) {
+
+		List<String> made = new ArrayList<>();
+		long expiresAt = System.currentTimeMillis() + reservationTtlSeconds * 1000;
+
+		for (ItemDataForm item : items) {
+			Sale sale = sales.get(item.getId());
+
+			if (sale == null) {
+				continue;
+			}
+
+			String key = key(userId, item.getId());
+			Reservation previous = reservations.remove(key);
+
+			if (previous != null) {
+				previous.sale.release(previous.count);
+			}
+
+			if (item.getCount() <= 0 || !sale.take(item.getCount())) {
+				for (String madeKey : made) {
+					Reservation reservation = reservations.remove(madeKey);
+
+					if (reservation != null) {
+						reservation.sale.release(reservation.count);
+					}
+				}
+				return false;
+			}
+
+			reservations.put(key, new Reservation(sale, item.getCount(), expiresAt));
+			made.add(key);
+		}
+
+		return true;
+	}
+
+	//주문 저장 트랜잭션 안에서 호출, 타임딜 상품은 예약을 확정하고 나머지 상품(DB 재고로 처리할 것)을 반환
+	//예약이 없거나(만료) 수량이 다르면 남은 수량에서 다시 가져오고, 부족하면 OutOfStockException
+	//커밋되면 DB 반영 대기 수량에 더하고, 롤백되면 가져간 수량을 장부에 되돌림
+	//트랜잭션이 끝날 때까지 확정 중으로 세어서, 타임딜 종료(close)가 커밋된 수량까지 DB에 반영한 뒤 DB 재고로 넘기게 함
+	public List<ItemDataForm> confirm(Long userId, List<ItemDataForm> items, Map<Long, Product> products) {
+
+		List<ItemDataForm> dbItems = new ArrayList<>();
+
+		for (ItemDataForm item : items) {
+			Sale sale = sales.get(item.getId());
+
+			if (sale == null) {
+				dbItems.add(item);
+				continue;
+			}
+
+			int count = item.getCount();
+
+			if (count <= 0) {
+				throw new IllegalArgumentException("주문 수량이 올바르지 않아요!");
+			}
+
+			//먼저 확정 중으로 센 뒤 종료 여부 확인(종료는 closed를 먼저 바꾼 뒤 확정 중인 수를 확인하므로 둘 중 하나는 상대를 봄)
+			sale.inFlight.incrementAndGet();
+
+			if (sale.closed) {
+				sale.inFlight.decrementAndGet();
+				dbItems.add(item);
+				continue;
+			}
+
+			Reservation reservation = reservations.remove(key(userId, item.getId()));
+			int reserved = reservation != null && reservation.sale == sale ? reservation.count : 0;
+
+			if (reserved > count) {
+				sale.release(reserved - count);
+			} else if (reserved < count && !sale.take(count - reserved)) {
+				sale.release(reserved);
+				sale.inFlight.decrementAndGet();
+				throw new OutOfStockException(products.get(item.getId()).getPname() + " 상품의 재고가 부족합니다");
+			}
+
+			Long productno = item.getId();
+
+			TransactionUtil.afterCommit(() -> confirmed.computeIfAbsent(productno, k -> new AtomicLong()).addAndGet(count));
+			TransactionUtil.afterRollback(() -> sale.release(count));
+			TransactionUtil.afterCompletion(() -> sale.inFlight.decrementAndGet());
+		}
+
+		return dbItems;
+	}
+
+	//타임딜이 아니라서 DB 재고를 감소시킨 상품들의 행 잠금을 잡은 뒤(조건부 UPDATE 뒤) 호출
+	//그 사이 타임딜이 시작됐으면 장부가 감소 전 재고를 읽었을 수 있으므로(같은 재고를 두번 팔 수 있음) 주문을 롤백
+	//  -> 타임딜 등록이 이 확인보다 늦으면 시작할 때의 재고 읽기(lockStock)가 이 주문의 커밋을 기다리므로 안전
+	public void checkNotStarted(List<ItemDataForm> dbItems, Map<Long, Product> products) {
+
+		for (ItemDataForm item : dbItems) {
+			if (sales.containsKey(item.getId())) {
+				throw new OutOfStockException(products.get(item.getId()).getPname() + " 상품의 타임딜이 시작되었습니다. 다시 주문해주세요");
+			}
+		}
+	}
+
+	//확정된 수량 DB 반영, 만료된 예약 반환, 끝난 타임딜 종료
+	@Scheduled(fixedDelayString = "${flashsale.flush-millis:1000}")
+	public void tick() {
+
+		long now = System.currentTimeMillis();
+
+		Iterator<Map.Entry<String, Reservation>> iterator = reservations.entrySet().iterator();
+
+		while (iterator.hasNext()) {
+			Map.Entry<String, Reservation> entry = iterator.next();
+			Reservation reservation = entry.getValue();
+
+			if (reservation.expiresAt < now && reservations.remove(entry.getKey(), reservation)) {
+				reservation.sale.release(reservation.count);
+			}
+		}
+
+		for (Map.Entry<Long, Sale> entry : sales.entrySet()) {
+			if (entry.getValue().endAt < now) {
+				stop(entry.getKey());
+			}
+		}
+
+		flush();
+	}
+
+	//서버 종료시 진행 중인 타임딜을 닫고(확정 중인 주문이 끝나기를 기다림) 남은 것 저장
+	@PreDestroy
+	public void onShutdown() {
+
+		for (Long productno : new ArrayList<>(sales.keySet())) {
+			close(productno);
+		}
+
+		flush();
+	}
+
+	//확정된 판매 수량을 상품별로 모아서 DB 재고에서 한번에 뺌(장부에서 이미 확인했으므로 조건 없이)
+	private synchronized void flush() {
+
+		Map<Long, Long> deltas = new LinkedHashMap<>();
+
+		for (Map.Entry<Long, AtomicLong> entry : confirmed.entrySet()) {
+			long count = entry.getValue().getAndSet(0);
+
+			if (count > 0) {
+				deltas.put(entry.getKey(), -count);
+			}
+		}
+
+		if (deltas.isEmpty()) {
+			return;
+		}
+
+		try {
+			transactionTemplate.execute(status -> {
+				productRepository.addStock(deltas);
+				return null;
+			});
+
+			for (Long productno : deltas.keySet()) {
+				productDetailCache.evict(productno);
+			}
+		} catch (RuntimeException e) {
+			//저장 실패시 다음 저장때 다시 시도
+			System.out.println("타임딜 재고 저장 실패: " + e.getMessage());
+
+			deltas.forEach((productno, delta) -> confirmed.computeIfAbsent(productno, k -> new AtomicLong()).addAndGet(-delta));
+		}
+	}
+
+	private synchronized void open(Long productno, LocalDateTime endAt) {
+
+		long endAtMillis = endAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+		Sale existing = sales.get(productno);
+
+		if (existing != null) {
+			existing.endAt = endAtMillis;
+			return;
+		}
+
+		//먼저 등록해서 이후 주문이 DB 재고를 건드리지 않게 한 뒤(재고를 읽기 전까지는 예약 실패)
+		//반영 안된 확정 수량을 저장하고, 이미 재고 행을 잠근 DB 주문이 끝나기를 기다렸다가 재고를 읽음
+		//등록 전에 타임딜이 아니라고 판단했지만 아직 재고를 감소시키지 않은 주문은 감소 후 checkNotStarted에서 롤백됨
+		Sale sale = new Sale(endAtMillis, shardCount);
+		sales.put(productno, sale);
+
+		flush();
+
+		Integer stock = transactionTemplate.execute(status -> productRepository.lockStock(productno));
+
+		sale.load(stock == null ? 0 : stock);
+	}
+
+	//이후 주문은 DB 재고로 처리되므로, 확정 중인 주문이 커밋(또는 롤백)될 때까지 기다렸다가 확정 수량을 DB에 반영
+	private synchronized void close(Long productno) {
+
+		Sale sale = sales.remove(productno);
+
+		if (sale == null) {
+			return;
+		}
+
+		sale.closed = true;
+
+		long deadline = System.currentTimeMillis() + closeWaitMillis;
+
+		while (sale.inFlight.get() > 0 && System.currentTimeMillis() < deadline) {
+			try {
+				Thread.sleep(10);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+
+		if (sale.inFlight.get() > 0) {
+			//못 기다린 주문은 커밋되면 다음 저장때 반영됨
+			System.out.println("타임딜 종료시 확정 중인 주문 대기 시간 초과(" + productno + "): " + sale.inFlight.get() + "건");
+		}
+
+		flush();
+	}
+
+	private static String key(Long userId, Long productno) {
+		return userId + ":" + productno;
+	}
+
+	//타임딜 한 건의 재고(칸마다 따로 증감)
+	private static final class Sale {
+
+		private volatile long endAt;
+		private final AtomicInteger[] shards;
+		private volatile boolean loaded;
+		//종료됨(이후 확정은 DB 재고로 처리)
+		private volatile boolean closed;
+		//확정했지만 트랜잭션이 아직 끝나지 않은 주문 상품 수
+		private final AtomicInteger inFlight = new AtomicInteger();
+
+		private Sale(long endAt, int shardCount) {
+
+			this.endAt = endAt;
+			this.shards = new AtomicInteger[Math.max(1, shardCount)];
+
+			for (int i = 0; i < shards.length; i++) {
+				shards[i] = new AtomicInteger();
+			}
+		}
+
+		private void load(int stock) {
+
+			int stockPerShard = Math.max(0, stock) / shards.length;
+			int remainder = Math.max(0, stock) % shards.length;
+
+			for (int i = 0; i < shards.length; i++) {
+				shards[i].set(stockPerShard + (i < remainder ? 1 : 0));
+			}
+			loaded = true;
+		}
+
+		//임의의 칸부터 돌면서 count개를 가져옴(모자라면 가져간 것을 되돌리고 false)
+		private boolean take(int count) {
+
+			if (!loaded) {
+				return false;
+			}
+
+			int start = ThreadLocalRandom.current().nextInt(shards.length);
+			Map<Integer, Integer> taken = new HashMap<>();
+			int remaining = count;
+
+			for (int i = 0; i < shards.length && remaining > 0; i++) {
+				int index = (start + i) % shards.length;
+				AtomicInteger shard = shards[index];
+
+				while (true) {
+					int current = shard.get();
+
+					if (current <= 0) {
+						break;
+					}
+
+					int amount = Math.min(current, remaining);
+
+					if (shard.compareAndSet(current, current - amount)) {
+						taken.merge(index, amount, Integer::sum);
+						remaining -= amount;
+						break;
+					}
+				}
+			}
+
+			if (remaining > 0) {
+				taken.forEach((index, amount) -> shards[index].addAndGet(amount));
+				return false;
+			}
+
+			return true;
+		}
+
+		private void release(int count) {
+
+			if (count > 0) {
+				shards[ThreadLocalRandom.current().nextInt(shards.length)].addAndGet(count);
+			}
+		}
+
+		private int available() {
+
+			int sum = 0;
+
+			for (AtomicInteger shard : shards) {
+				sum += shard.get();
+			}
+
+			return sum;
+		}
+	}
+
+	//결제 전 예약
+	private static final class Reservation {
+
+		private final Sale sale;
+		private final int count;
+		private final long expiresAt;
+
+		private Reservation(Sale sale, int count, long expiresAt) {
+			this.sale = sale;
+			this.count = count;
+			this.expiresAt = expiresAt;
+		}
+	}
+
+}
@@ -0,0 +1,148 @@
+package com.spring.boot.service;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.View;
+import org.thymeleaf.spring5.view.ThymeleafViewResolver;
+
+import com.spring.boot.dto.MainPageSnapshot;
+import com.spring.boot.util.TransactionUtil;
+
+import lombok.RequiredArgsConstructor;
+
+//비로그인 사용자용 메인 화면 HTML 캐시
+//비로그인 메인 화면은 모든 사용자에게 같으므로(최근 등록, 판매량 상위, 헤더의 카테고리 메뉴) 스냅샷 버전마다 한번만 렌더링
+//상품 등록/수정, 주문이 커밋되면 generation을 올려서 스냅샷을 다시 만들게 함 -> 버전이 바뀌면 HTML도 다시 렌더링
+@Component
+@RequiredArgsConstructor
+public class MainPageHtmlCache {
+
+	private static final String VIEW_NAME = "mainPage";
+
+	private final ThymeleafViewResolver thymeleafViewResolver;
+
+	// 상품/주문 변경 횟수(스냅샷이 만들어진 뒤에 바뀌었는지 확인용)
+	private final AtomicLong generation = new AtomicLong();
+
+	private volatile Entry cached;
+
+	//상품/주문 저장 트랜잭션 안에서 호출 -> 커밋된 뒤에 반영
+	public void invalidate() {
+		TransactionUtil.afterCommit(generation::incrementAndGet);
+	}
+
+	public long getGeneration() {
+		return generation.get();
+	}
+
+	//스냅샷의 캐시된 HTML을 그대로 쓰는 View(캐시에 없으면 한번 렌더링)
+	public View getView(MainPageSnapshot snapshot) {
+
+		return (model, request, response) -> {
+			String html = getHtml(snapshot, request, response);
+
+			response.setContentType("text/html;charset=UTF-8");
+			response.getWriter().write(html);
+		};
+	}
+
+	private String getHtml(MainPageSnapshot snapshot, HttpServletRequest request, HttpServletResponse response)
+			throws Exception {
+
+		Entry entry = cached;
+
+		if (entry != null && entry.version == snapshot.getVersion()) {
+			return entry.html;
+		}
+
+		synchronized (this) {
+			//기다리는 동안 다른 요청이 렌더링 했으면 그 값을 사용
+			entry = cached;
+
+			if (entry != null && entry.version == snapshot.getVersion()) {
+				return entry.html;
+			}
+
+			Map<String, Object> model = new HashMap<>();
+			model.put("recentlyProducts", snapshot.getRecentlyProducts());
+			model.put("productListTop8", snapshot.getProductListTop8());
+
+			BufferedResponse buffered = new BufferedResponse(response);
+			View view = thymeleafViewResolver.resolveViewName(VIEW_NAME, request.getLocale());
+			view.render(model, request, buffered);
+
+			String html = buffered.getHtml();
+
+			//더 최신 스냅샷으로 이미 렌더링 했으면 덮어쓰지 않음
+			if (cached == null || cached.version < snapshot.getVersion()) {
+				cached = new Entry(snapshot.getVersion(), html);
+			}
+
+			return html;
+		}
+	}
+
+	private static final class Entry {
+
+		private final long version;
+		private final String html;
+
+		private Entry(long version, String html) {
+			this.version = version;
+			this.html = html;
+		}
+	}
+
+	//렌더링 결과를 문자열로 받는 응답
+	//링크에 세션 id(;jsessionid=)가 붙어서 다른 사용자에게 나가지 않도록 URL 인코딩은 하지 않음
+	private static final class BufferedResponse extends HttpServletResponseWrapper {
+
+		private final StringWriter buffer = new StringWriter();
+		private final PrintWriter writer = new PrintWriter(buffer);
+
+		private BufferedResponse(HttpServletResponse response) {
+			super(response);
+		}
+
+		@Override
+		public PrintWriter getWriter() {
+			return writer;
+		}
+
+		@Override
+		public ServletOutputStream getOutputStream() {
+			throw new IllegalStateException("getWriter()만 사용");
+		}
+
+		@Override
+		public void flushBuffer() {
+			writer.flush();
+		}
+
+		@Override
+		public String encodeURL(String url) {
+			return url;
+		}
+
+		@Override
+		public String encodeRedirectURL(String url) {
+			return url;
+		}
+
+		private String getHtml() {
+			writer.flush();
+			return buffer.toString();
+		}
+	}
+
+}
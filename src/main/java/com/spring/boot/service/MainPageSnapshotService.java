@@ -0,0 +1,188 @@
+package com.spring.boot.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.spring.boot.dto.MainPageSnapshot;
+import com.spring.boot.dto.ProductCardDTO;
+
+import lombok.RequiredArgsConstructor;
+
+//메인 화면 스냅샷
+//N초마다 새 스냅샷을 만들어 AtomicReference를 교체하고, 요청에서는 현재 스냅샷만 읽음(락 없음)
+//비로그인 메인 화면 HTML은 스냅샷 버전 단위로 캐시(MainPageHtmlCache)
+@Service
+@RequiredArgsConstructor
+public class MainPageSnapshotService {
+
+	private static final int TOP_N = 8;//최근 등록/판매량 상위 개수
+	private static final int CANDIDATE_N = 20;//카테고리별 추천 후보 개수
+
+	//상품/주문이 바뀐 뒤 스냅샷을 다시 만드는 최소 간격
+	@Value("${main.snapshot.min-rebuild-millis:1000}")
+	private long minRebuildMillis;
+
+	private final ProductService productService;
+	private final SalesRanking salesRanking;
+	private final MainPageHtmlCache mainPageHtmlCache;
+	private final TaskScheduler taskScheduler;
+
+	private final AtomicReference<MainPageSnapshot> snapshot = new AtomicReference<>();
+
+	// 다시 만드는 작업을 맡겼는지(한 번만 맡기고 그동안 요청은 현재 스냅샷 사용)
+	private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+	//현재 스냅샷(서버 시작 직후 아직 없으면 한번 만듦)
+	//상품/주문이 바뀌었으면 주기를 기다리지 않고 스케줄러에서 다시 만듦(minRebuildMillis 간격 이상일 때만)
+	//  -> 요청 스레드는 조회를 기다리지 않고 현재 스냅샷을 바로 반환
+	public MainPageSnapshot getSnapshot() {
+
+		MainPageSnapshot current = snapshot.get();
+
+		if (current == null) {
+			return initialize();
+		}
+
+		if (isStale(current) && rebuilding.compareAndSet(false, true)) {
+			try {
+				taskScheduler.schedule(() -> {
+					try {
+						rebuildIfStale();
+					} catch (RuntimeException e) {
+						System.out.println("메인 화면 스냅샷 만들기 실패: " + e.getMessage());
+					} finally {
+						rebuilding.set(false);
+					}
+				}, Instant.now());
+			} catch (TaskRejectedException e) {
+				//서버 종료 중 등 맡기지 못하면 다음 주기에 다시 만듦
+				rebuilding.set(false);
+			}
+		}
+
+		return current;
+	}
+
+	@Scheduled(fixedDelayString = "${main.snapshot.refresh-millis:10000}")
+	public void refresh() {
+		build();
+	}
+
+	//처음 요청들이 동시에 들어오면 하나만 만들고 나머지는 만든 것을 사용
+	private synchronized MainPageSnapshot initialize() {
+
+		MainPageSnapshot current = snapshot.get();
+
+		return current != null ? current : build();
+	}
+
+	//기다리는 동안 주기 작업이 이미 다시 만들었으면 건너뜀
+	private synchronized void rebuildIfStale() {
+
+		if (isStale(snapshot.get())) {
+			build();
+		}
+	}
+
+	private boolean isStale(MainPageSnapshot current) {
+		return current.getGeneration() != mainPageHtmlCache.getGeneration()
+				&& System.currentTimeMillis() - current.getBuiltAt() >= minRebuildMillis;
+	}
+
+	private synchronized MainPageSnapshot build() {
+
+		//조회 전에 읽어서, 조회하는 동안 바뀐 것은 다음에 다시 만들도록 함
+		long generation = mainPageHtmlCache.getGeneration();
+
+		List<Long> top8Ids = salesRanking.getTopN(0, TOP_N);
+
+		Map<String, List<long[]>> categoryCandidates = new LinkedHashMap<>();
+
+		for (String category : ProductSpecification.getCategories()) {
+			categoryCandidates.put(category, salesRanking.getCategoryCandidates(category, CANDIDATE_N));
+		}
+
+		//판매량 상위와 카테고리별 후보 상품 카드를 한번에 조회
+		Set<Long> ids = new LinkedHashSet<>(top8Ids);
+
+		for (List<long[]> candidates : categoryCandidates.values()) {
+			for (long[] candidate : candidates) {
+				ids.add(candidate[0]);
+			}
+		}
+
+		Map<Long, ProductCardDTO> cards = new HashMap<>();
+
+		for (ProductCardDTO card : productService.getCardsInOrder(new ArrayList<>(ids))) {
+			cards.put(card.getId(), card);
+		}
+
+		Map<String, List<MainPageSnapshot.Candidate>> candidatesByCategory = new HashMap<>();
+
+		for (Map.Entry<String, List<long[]>> entry : categoryCandidates.entrySet()) {
+			candidatesByCategory.put(entry.getKey(), toCandidates(entry.getValue(), cards));
+		}
+
+		MainPageSnapshot previous = snapshot.get();
+
+		MainPageSnapshot next = new MainPageSnapshot(productService.getTop8NewestProducts(), pick(top8Ids, cards),
+				candidatesByCategory, previous == null ? 1 : previous.getVersion() + 1, System.currentTimeMillis(), generation);
+
+		snapshot.set(next);
+
+		return next;
+	}
+
+	//주문 건수를 카테고리 1위 기준 0~1 점수로 바꿔서 후보 목록 만들기(삭제된 상품은 제외)
+	private List<MainPageSnapshot.Candidate> toCandidates(List<long[]> ranked, Map<Long, ProductCardDTO> cards) {
+
+		List<MainPageSnapshot.Candidate> result = new ArrayList<>();
+
+		if (ranked.isEmpty()) {
+			return result;
+		}
+
+		double max = Math.max(1, ranked.get(0)[1]);
+
+		for (long[] candidate : ranked) {
+			ProductCardDTO card = cards.get(candidate[0]);
+
+			if (card != null) {
+				result.add(new MainPageSnapshot.Candidate(card, candidate[1] / max));
+			}
+		}
+
+		return result;
+	}
+
+	//id 순서대로 카드 목록 만들기(삭제된 상품은 제외)
+	private List<ProductCardDTO> pick(List<Long> ids, Map<Long, ProductCardDTO> cards) {
+
+		List<ProductCardDTO> result = new ArrayList<>();
+
+		for (Long id : ids) {
+			ProductCardDTO card = cards.get(id);
+
+			if (card != null) {
+				result.add(card);
+			}
+		}
+
+		return result;
+	}
+
+}
@@ -1,18 +1,23 @@
 package com.spring.boot.service;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.spring.boot.dao.OrderListRepository;
 import com.spring.boot.dao.ProductRepository;
 import com.spring.boot.dao.UserRepository;
 import com.spring.boot.dto.ItemDataForm;
 import com.spring.boot.dto.PaymentDataForm;
+import com.spring.boot.dto.RepeatBuyerStatsDTO;
 import com.spring.boot.model.OrderList;
 import com.spring.boot.model.Product;
 import com.spring.boot.model.SiteUser;
@@ -27,16 +32,38 @@ public class OrderListService {
 	private final OrderListRepository orderListRepository;
 	private final ProductRepository productRepository;
 	private final UserRepository userRepository;
+	private final SalesRanking salesRanking;
+	private final RepeatBuyerStatistics repeatBuyerStatistics;
+	private final TrendingProducts trendingProducts;
+	private final PersonalRecommender personalRecommender;
+	private final MainPageHtmlCache mainPageHtmlCache;
 
+	@Transactional
 	public List<OrderList> saveOrderHistory(PaymentDataForm paymentDataForm, SiteUser user) {
 
+		Map<Long, Product> products = new HashMap<>();
+
+		for (ItemDataForm productData : paymentDataForm.getItemIds()) {
+			products.computeIfAbsent(productData.getId(), id -> productRepository.findById(id).get());
+		}
+
+		return saveOrderHistory(paymentDataForm, user, products);
+	}
+
+	// 이미 조회한 상품(판매자 포함)으로 주문내역 저장
+	// 주문내역 id는 테이블 채번(IDENTITY 아님)이라 INSERT가 커밋 전에 JDBC 배치로 한번에 나감
+	@Transactional
+	public List<OrderList> saveOrderHistory(PaymentDataForm paymentDataForm, SiteUser user, Map<Long, Product> products) {
+
 		List<ItemDataForm> list = paymentDataForm.getItemIds();
 		List<OrderList> orderLists = new ArrayList<OrderList>();
+		List<Long> productnos = new ArrayList<>();
+		LocalDateTime orderDate = LocalDateTime.now();
 
 		for (ItemDataForm productData : list) {
 
 			OrderList orderlist = new OrderList();
-			SiteUser seller = productRepository.findById(productData.getId()).get().getUser();
+			SiteUser seller = products.get(productData.getId()).getUser();
 
 			orderlist.setOrderNo(paymentDataForm.getMerchant_uid());
 			orderlist.setProductno(productData.getId());
@@ -51,11 +78,25 @@ public class OrderListService {
 			orderlist.setZip(paymentDataForm.getBuyer_postcode());
 			orderlist.setAddr_detail(paymentDataForm.getBuyer_addr_detail());
 			orderlist.setRequest(paymentDataForm.getRequest());
+			orderlist.setOrderDate(orderDate);
 
 			orderListRepository.save(orderlist);
 			orderLists.add(orderlist);
+			productnos.add(productData.getId());
+
+			// 최근 판매량, 개인 추천용 구매 목록 반영(커밋된 뒤 메모리에만 반영)
+			trendingProducts.recordSale(orderlist.getId(), productData.getId(), productData.getCount());
+			personalRecommender.recordPurchase(user.getId(), productData.getId());
 		}
 
+		// 상품별 판매 집계, 구매자별 구매 횟수 반영(베스트 상품 순위/재구매 통계에 사용)
+		// 주문 상품마다 한 문장씩이지만 각각 JDBC 배치 한번으로 보내고, 구매 횟수는 IN 조회 한번으로 읽음
+		salesRanking.recordSales(list);
+		repeatBuyerStatistics.recordPurchases(productnos, user.getId());
+
+		// 판매량 상위가 바뀌었을 수 있으므로 메인 화면 다시 만들기
+		mainPageHtmlCache.invalidate();
+
 		return orderLists;
 
 	}
@@ -66,12 +107,18 @@ public class OrderListService {
 		// 몇개의 데이터 가져올지 변수로 입력
 		Pageable topCount = pageable;
 
-		// 판매량 상위 n개의 상품 id 리스트에 담기
-		List<Long> topNSellingProductIdList = orderListRepository.findTopNSellingProductnos(topCount);
+		// 판매량 상위 n개의 상품 id 리스트에 담기(주문내역 GROUP BY 대신 메모리 순위에서 읽음)
+		List<Long> topNSellingProductIdList = salesRanking.getTopN(topCount.getOffset(), topCount.getPageSize());
 
 		return topNSellingProductIdList;
 	}
 
+	// 카테고리 판매량 상위 n개의 productno 데이터 가져오기(카테고리별로 유지되는 순위에서 읽음)
+	public List<Long> getTopNSellingProductnosByCategory(String category, Pageable pageable) {
+
+		return salesRanking.getTopNByCategory(category, pageable.getPageSize());
+	}
+
 	// 판매량 상위 n개의 productno 데이터 가져오기
 	public List<Long> getTopNSellingProductnosFoundByCategory(
 			List<Product> productsFoundByCategory, Pageable pageable) {
@@ -91,18 +138,32 @@ public class OrderListService {
 		return topNSellingProductIdList;
 	}
 
-	// 판매량 상위 n개의 상품 중 재구매가 3회 이상 일어난 상품 productno 리스트에 담기
+	// 판매량 상위 n개의 상품 중 재구매가 3회(기준 횟수) 이상 일어난 상품 productno 리스트에 담기
+	// 주문내역 GROUP BY ... HAVING 대신 메모리에 유지되는 재구매 통계 사용
 	public List<Long> getProductnosBoughtMoreThan3TimesBySameUser(List<Long> topNSellingProductnos) {
 
-		List<Object[]> findProductnosBoughtMoreThan3TimesBySameUser = orderListRepository
-				.findProductsBoughtMoreThan3TimesBySameUser(topNSellingProductnos);
+		return repeatBuyerStatistics.filterRepurchased(topNSellingProductnos);
 
-		List<Long> productIdList = findProductnosBoughtMoreThan3TimesBySameUser
-				.stream().map(result -> (Long) result[0])
-				.collect(Collectors.toList());
+	}
+
+	// 상품별 재구매 통계(구매자 수, 재구매자 수, 재구매율)
+	public Map<Long, RepeatBuyerStatsDTO> getRepeatBuyerStats(List<Long> productnos) {
 
-		return productIdList;
+		return repeatBuyerStatistics.getStats(productnos);
+	}
+
+	// 최근 판매량 상위 n개의 productno(sort: trending=감쇠 점수, trendingHour/Day/Week=해당 기간 판매량)
+	public List<Long> getTrendingProductnos(String sort, int size) {
+
+		if ("trendingHour".equals(sort)) {
+			return trendingProducts.getTop(TrendingProducts.Window.HOUR, size);
+		} else if ("trendingDay".equals(sort)) {
+			return trendingProducts.getTop(TrendingProducts.Window.DAY, size);
+		} else if ("trendingWeek".equals(sort)) {
+			return trendingProducts.getTop(TrendingProducts.Window.WEEK, size);
+		}
 
+		return trendingProducts.getTrending(size);
 	}
 
 	// 페이징
@@ -0,0 +1,269 @@
+package com.spring.boot.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spring.boot.dao.OutboxEventRepository;
+import com.spring.boot.dao.UserRepository;
+import com.spring.boot.dto.OrderCompletedEvent;
+import com.spring.boot.model.OutboxEvent;
+import com.spring.boot.model.SiteUser;
+import com.spring.boot.util.TransactionUtil;
+
+import lombok.RequiredArgsConstructor;
+
+//주문 후처리 대기열(트랜잭셔널 아웃박스)
+//주문 트랜잭션에서는 재고/주문내역/잔액만 바로 처리하고, 내역 저장과 장바구니 삭제는 outbox_event 한 행으로 남김
+//  -> 주문과 같이 커밋되므로 주문이 저장되면 후처리도 반드시 남고, 롤백되면 같이 사라짐
+//작업 스레드는 batch-size 건을 짧은 UPDATE로 자기 몫으로 표시해서 가져온 뒤, 행 잠금 없이 한 트랜잭션으로 처리하고 삭제
+//처리에 실패하면 한 건씩 다시 처리해서 실패한 건만 점점 길게 기다렸다가 다시 시도
+@Component
+@RequiredArgsConstructor
+public class OrderOutbox {
+
+	public static final String ORDER_COMPLETED = "ORDER_COMPLETED";
+
+	//작업 스레드 수
+	@Value("${outbox.workers:2}")
+	private int workers;
+
+	//한 트랜잭션에서 처리할 건수
+	@Value("${outbox.batch-size:100}")
+	private int batchSize;
+
+	//처리할 것이 없을 때 다시 확인하는 간격(주문이 커밋되면 바로 깨움)
+	@Value("${outbox.poll-millis:1000}")
+	private long pollMillis;
+
+	//가져간 뒤 이 시간 안에 처리하지 못하면(서버 종료 등) 다른 작업이 다시 가져감
+	@Value("${outbox.lease-seconds:60}")
+	private long leaseSeconds;
+
+	//실패시 다시 시도까지 최대 대기 시간
+	@Value("${outbox.max-retry-seconds:600}")
+	private long maxRetrySeconds;
+
+	private final OutboxEventRepository outboxEventRepository;
+	private final UserRepository userRepository;
+	private final PointService pointService;
+	private final PayService payService;
+	private final CartItemService cartItemService;
+	private final ObjectMapper objectMapper;
+	private final PlatformTransactionManager transactionManager;
+
+	private final Object signal = new Object();
+
+	private TransactionTemplate transactionTemplate;
+
+	private volatile boolean running;
+	private ExecutorService executor;
+
+	//주문 저장 트랜잭션 안에서 호출(커밋되면 작업 스레드를 깨움)
+	public void publish(OrderCompletedEvent event) {
+
+		OutboxEvent outboxEvent = new OutboxEvent();
+		outboxEvent.setType(ORDER_COMPLETED);
+		outboxEvent.setCreatedAt(LocalDateTime.now());
+		outboxEvent.setNextAttemptAt(outboxEvent.getCreatedAt());
+
+		try {
+			outboxEvent.setPayload(objectMapper.writeValueAsString(event));
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("주문 후처리 저장 실패", e);
+		}
+
+		outboxEventRepository.save(outboxEvent);
+
+		TransactionUtil.afterCommit(this::wakeUp);
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void start() {
+
+		running = true;
+		executor = Executors.newFixedThreadPool(workers);
+
+		//작업 트랜잭션은 READ COMMITTED(갭 잠금이 없어서 주문의 INSERT가 기다리지 않음)
+		transactionTemplate = new TransactionTemplate(transactionManager);
+		transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+
+		for (int i = 0; i < workers; i++) {
+			executor.submit(this::work);
+		}
+	}
+
+	//서버 종료시 처리 중인 배치까지만 끝내고 멈춤(남은 것은 다음 시작때 처리)
+	@PreDestroy
+	public void stop() throws InterruptedException {
+
+		running = false;
+		wakeUp();
+
+		if (executor != null) {
+			executor.shutdown();
+			executor.awaitTermination(10, TimeUnit.SECONDS);
+		}
+	}
+
+	private void wakeUp() {
+		synchronized (signal) {
+			signal.notifyAll();
+		}
+	}
+
+	private void work() {
+
+		while (running) {
+			int processed;
+
+			try {
+				processed = drain();
+			} catch (RuntimeException e) {
+				System.out.println("주문 후처리 실패: " + e.getMessage());
+				processed = 0;
+			}
+
+			//한 배치를 꽉 채웠으면 남은 것이 있으므로 바로 다음 배치
+			if (processed < batchSize) {
+				synchronized (signal) {
+					try {
+						signal.wait(pollMillis);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						return;
+					}
+				}
+			}
+		}
+	}
+
+	//처리할 차례인 것을 batch-size 건 가져와서 처리하고 가져온 건수 반환
+	private int drain() {
+
+		String owner = UUID.randomUUID().toString();
+		LocalDateTime now = LocalDateTime.now();
+
+		//가져가기(짧은 트랜잭션으로 바로 커밋 -> 처리하는 동안 주문의 INSERT나 다른 작업을 막지 않음)
+		int claimed = transactionTemplate.execute(status -> outboxEventRepository.claim(owner, now,
+				now.plusSeconds(leaseSeconds), batchSize));
+
+		if (claimed == 0) {
+			return 0;
+		}
+
+		List<OutboxEvent> events = outboxEventRepository.findByLockedByOrderById(owner);
+
+		try {
+			transactionTemplate.execute(status -> {
+				for (OutboxEvent event : events) {
+					apply(event);
+				}
+				complete(events, owner);
+				return null;
+			});
+		} catch (RuntimeException e) {
+			//배치 중 하나라도 실패하면 전부 롤백됨 -> 한 건씩 다시 처리해서 실패한 건만 미룸
+			for (OutboxEvent event : events) {
+				try {
+					transactionTemplate.execute(status -> {
+						apply(event);
+						complete(Collections.singletonList(event), owner);
+						return null;
+					});
+				} catch (RuntimeException eventException) {
+					markFailed(event, owner, eventException);
+				}
+			}
+		}
+
+		return claimed;
+	}
+
+	//처리한 행 삭제(같은 트랜잭션), 그 사이 다른 작업이 가져갔으면 처리한 것까지 롤백
+	private void complete(List<OutboxEvent> events, String owner) {
+
+		List<Long> ids = new ArrayList<>();
+
+		for (OutboxEvent event : events) {
+			ids.add(event.getId());
+		}
+
+		if (outboxEventRepository.deleteClaimed(ids, owner) != ids.size()) {
+			throw new IllegalStateException("처리 시간(lease-seconds) 초과로 다른 작업이 가져감");
+		}
+	}
+
+	//실패 횟수만큼 2배씩 늘려서(최대 max-retry-seconds) 다시 시도
+	private void markFailed(OutboxEvent event, String owner, RuntimeException cause) {
+
+		System.out.println("주문 후처리 실패(" + event.getId() + "): " + cause.getMessage());
+
+		String error = String.valueOf(cause.getMessage());
+
+		if (error.length() > 500) {
+			error = error.substring(0, 500);
+		}
+
+		long delaySeconds = Math.min(maxRetrySeconds, 1L << Math.min(event.getAttempts(), 20));
+		String lastError = error;
+
+		try {
+			transactionTemplate.execute(status -> outboxEventRepository.markFailed(event.getId(), owner,
+					LocalDateTime.now().plusSeconds(delaySeconds), lastError));
+		} catch (RuntimeException e) {
+			//기록하지 못해도 lockedUntil이 지나면 다시 처리됨
+			System.out.println("주문 후처리 실패 기록 실패(" + event.getId() + "): " + e.getMessage());
+		}
+	}
+
+	private void apply(OutboxEvent event) {
+
+		if (!ORDER_COMPLETED.equals(event.getType())) {
+			throw new IllegalStateException("알 수 없는 주문 후처리: " + event.getType());
+		}
+
+		OrderCompletedEvent order;
+
+		try {
+			order = objectMapper.readValue(event.getPayload(), OrderCompletedEvent.class);
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("주문 후처리 읽기 실패", e);
+		}
+
+		//내역에는 사용자 id만 필요하므로 조회하지 않고 참조만 사용
+		SiteUser user = userRepository.getReferenceById(order.getUserId());
+
+		//포인트사용시 포인트사용내역저장
+		if (order.getUsedPoint() > 0) {
+			pointService.saveUsePointHistory(user, order.getUsedPoint(), order.getOrderName());
+		}
+		//페이머니 결제금액있을경우 사용내역저장
+		if (order.getUsedPayMoney() > 0) {
+			payService.savePayHistory(user, order.getUsedPayMoney(), order.getOrderName());
+		}
+		//포인트적립내역저장
+		pointService.saveGetPointHistory(user, order.getEarnedPoint(), order.getOrderName());
+
+		//장바구니에서 삭제
+		cartItemService.deleteBuyItems(order.getUserId(), order.getProductIds());
+	}
+
+}
@@ -0,0 +1,141 @@
+package com.spring.boot.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.spring.boot.dao.OrderListRepository;
+import com.spring.boot.dto.MainPageSnapshot;
+import com.spring.boot.dto.ProductCardDTO;
+import com.spring.boot.model.SiteUser;
+import com.spring.boot.util.TransactionUtil;
+
+import lombok.RequiredArgsConstructor;
+
+//관심사 기반 추천
+//interest1~3 카테고리의 추천 후보(스냅샷에 점수순으로 미리 정렬되어 있음)를 가중치를 곱해서 k-way 병합
+//같은 상품은 한번만, 이미 구매한 상품은 제외
+@Component
+@RequiredArgsConstructor
+public class PersonalRecommender {
+
+	//interest1, interest2, interest3 가중치
+	@Value("${personal.weights:1.0,0.6,0.3}")
+	private double[] weights;
+
+	//구매한 상품 목록을 메모리에 둘 최대 사용자 수
+	@Value("${personal.bought-cache.max-users:10000}")
+	private int maxUsers;
+
+	private final OrderListRepository orderListRepository;
+
+	// 사용자 id -> 구매한 상품번호(접근 순서 LRU)
+	private final Map<Long, Set<Long>> boughtByUser = new LinkedHashMap<Long, Set<Long>>(16, 0.75f, true) {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, Set<Long>> eldest) {
+			return size() > maxUsers;
+		}
+	};
+
+	//사용자 관심사 기반 추천 상품 size개
+	public List<ProductCardDTO> recommend(SiteUser user, MainPageSnapshot snapshot, int size) {
+
+		String[] interests = { user.getInterest1(), user.getInterest2(), user.getInterest3() };
+
+		List<List<MainPageSnapshot.Candidate>> lists = new ArrayList<>();
+		List<Double> listWeights = new ArrayList<>();
+		Set<String> seenCategories = new HashSet<>();
+
+		for (int i = 0; i < interests.length && i < weights.length; i++) {
+			//같은 카테고리를 여러 관심사로 고른 경우 처음 것만
+			if (interests[i] != null && seenCategories.add(interests[i])) {
+				lists.add(snapshot.getCandidates(interests[i]));
+				listWeights.add(weights[i]);
+			}
+		}
+
+		Set<Long> bought = getBought(user.getId());
+
+		// 각 목록의 현재 위치를 (가중치 x 점수)가 큰 순서로 꺼냄
+		PriorityQueue<int[]> heads = new PriorityQueue<>((a, b) -> Double.compare(
+				weighted(lists, listWeights, b), weighted(lists, listWeights, a)));
+
+		for (int i = 0; i < lists.size(); i++) {
+			if (!lists.get(i).isEmpty()) {
+				heads.add(new int[] { i, 0 });
+			}
+		}
+
+		List<ProductCardDTO> result = new ArrayList<>(size);
+		Set<Long> added = new HashSet<>();
+
+		while (result.size() < size && !heads.isEmpty()) {
+			int[] head = heads.poll();
+			ProductCardDTO card = lists.get(head[0]).get(head[1]).getCard();
+
+			if (!bought.contains(card.getId()) && added.add(card.getId())) {
+				result.add(card);
+			}
+
+			if (head[1] + 1 < lists.get(head[0]).size()) {
+				heads.add(new int[] { head[0], head[1] + 1 });
+			}
+		}
+
+		return result;
+	}
+
+	//주문 저장 트랜잭션 안에서 호출 -> 커밋된 뒤에 구매 목록에 추가(캐시에 있는 사용자만)
+	public void recordPurchase(Long userId, Long productno) {
+
+		TransactionUtil.afterCommit(() -> {
+			synchronized (boughtByUser) {
+				Set<Long> bought = boughtByUser.get(userId);
+
+				if (bought != null) {
+					Set<Long> next = new HashSet<>(bought);
+					next.add(productno);
+					boughtByUser.put(userId, Collections.unmodifiableSet(next));
+				}
+			}
+		});
+	}
+
+	//처음 조회하는 사용자만 DB에서 읽고 이후에는 메모리에서
+	private Set<Long> getBought(Long userId) {
+
+		Set<Long> bought;
+
+		synchronized (boughtByUser) {
+			bought = boughtByUser.get(userId);
+		}
+
+		if (bought != null) {
+			return bought;
+		}
+
+		bought = Collections.unmodifiableSet(new HashSet<>(orderListRepository.findBoughtProductnos(userId)));
+
+		synchronized (boughtByUser) {
+			//조회하는 동안 다른 요청이 넣었으면 그 값을 사용
+			Set<Long> existing = boughtByUser.putIfAbsent(userId, bought);
+			return existing != null ? existing : bought;
+		}
+	}
+
+	private double weighted(List<List<MainPageSnapshot.Candidate>> lists, List<Double> listWeights, int[] head) {
+		return listWeights.get(head[0]) * lists.get(head[0]).get(head[1]).getScore();
+	}
+
+}
@@ -0,0 +1,94 @@
+package com.spring.boot.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.spring.boot.dto.ProductDetailView;
+
+//상품 상세 화면 캐시
+//키: 상품 id, 값: 만든 시점의 상품 버전이 들어있는 ProductDetailView
+//상품/리뷰/문의/답변이 바뀌면 그 상품의 버전을 올려서 이전에 만든 화면은 더이상 쓰지 않음
+//판매자의 다른 상품 목록처럼 버전으로 잡을 수 없는 변경은 짧은 TTL로 반영
+@Component
+public class ProductDetailCache {
+
+	@Value("${product.detail.cache.ttl-millis:5000}")
+	private long ttlMillis;
+
+	@Value("${product.detail.cache.max-entries:500}")
+	private int maxEntries;
+
+	// 상품 id -> 버전(변경될 때마다 1씩 증가)
+	private final Map<Long, Long> versions = new ConcurrentHashMap<>();
+
+	// 접근 순서 LinkedHashMap(LRU)
+	private final Map<Long, Entry> entries = new LinkedHashMap<Long, Entry>(16, 0.75f, true) {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+			return size() > maxEntries;
+		}
+	};
+
+	public long getVersion(Long productId) {
+		return versions.getOrDefault(productId, 0L);
+	}
+
+	//만료되지 않았고 버전이 그대로인 경우만 반환
+	public ProductDetailView get(Long productId) {
+
+		Entry entry;
+
+		synchronized (entries) {
+			entry = entries.get(productId);
+		}
+
+		if (entry == null || entry.expiresAt < System.currentTimeMillis()
+				|| entry.view.getVersion() != getVersion(productId)) {
+			return null;
+		}
+
+		return entry.view;
+	}
+
+	//조회하는 동안 상품이 바뀌었으면(버전이 다르면) 저장하지 않음
+	public void put(Long productId, ProductDetailView view) {
+
+		synchronized (entries) {
+			if (view.getVersion() == getVersion(productId)) {
+				entries.put(productId, new Entry(view, System.currentTimeMillis() + ttlMillis));
+			}
+		}
+	}
+
+	//상품, 리뷰, 문의, 답변 등록/수정/삭제시 호출
+	public void evict(Long productId) {
+
+		if (productId == null) {
+			return;
+		}
+
+		synchronized (entries) {
+			versions.merge(productId, 1L, Long::sum);
+			entries.remove(productId);
+		}
+	}
+
+	private static class Entry {
+
+		private final ProductDetailView view;
+		private final long expiresAt;
+
+		private Entry(ProductDetailView view, long expiresAt) {
+			this.view = view;
+			this.expiresAt = expiresAt;
+		}
+	}
+
+}
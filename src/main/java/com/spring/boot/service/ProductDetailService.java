@@ -0,0 +1,224 @@
+package com.spring.boot.service;
+
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.spring.boot.config.DataNotFoundException;
+import com.spring.boot.dao.ProductRepository;
+import com.spring.boot.dto.ProductCardDTO;
+import com.spring.boot.dto.ProductDetailView;
+import com.spring.boot.model.Product;
+import com.spring.boot.model.Question;
+import com.spring.boot.model.Review;
+
+import lombok.RequiredArgsConstructor;
+
+//상품 상세 화면 데이터 조립
+//상품은 한번만 조회하고, 판매자의 다른 상품은 개수를 제한해서 카드 컬럼만 조회
+//리뷰, 문의, 판매자의 다른 상품, 함께 구매한 상품은 서로 독립적이라 동시에 조회
+//첫 페이지(리뷰/문의 기본 크기)는 ProductDetailCache에 저장해서 재사용
+@RequiredArgsConstructor
+@Service
+public class ProductDetailService {
+
+	public static final int DEFAULT_PAGE_SIZE = 10;//리뷰/문의 페이지 크기
+	private static final int SELLER_PRODUCT_LIMIT = 8;//판매자의 다른 상품 최대 개수
+	private static final int BOUGHT_TOGETHER_LIMIT = 8;//함께 구매한 상품 최대 개수
+	private static final long LOG_INTERVAL_MILLIS = 10000;//빈 값 대체 로그 최소 간격
+
+	private final ProductRepository productRepository;
+	private final ProductService productService;
+	private final CoPurchaseIndex coPurchaseIndex;
+	private final ReviewService reviewService;
+	private final QuestionService questionService;
+	private final ProductDetailCache productDetailCache;
+	private final PlatformTransactionManager transactionManager;
+	private final ThreadPoolTaskExecutor productDetailExecutor;
+
+	private final AtomicLong lastFallbackLogAt = new AtomicLong();
+	private final AtomicInteger suppressedFallbacks = new AtomicInteger();
+
+	//영역별 제한 시간(요청 시작 기준), 넘으면 해당 영역은 빈 값으로 보여줌
+	@Value("${product.detail.timeout.reviews-millis:500}")
+	private long reviewTimeoutMillis;
+	@Value("${product.detail.timeout.questions-millis:500}")
+	private long questionTimeoutMillis;
+	@Value("${product.detail.timeout.seller-products-millis:300}")
+	private long sellerProductTimeoutMillis;
+
+	public ProductDetailView getDetailView(long productNo, Pageable pageable) {
+
+		boolean firstPage = pageable.getPageNumber() == 0 && pageable.getPageSize() == DEFAULT_PAGE_SIZE;
+
+		if (!firstPage) {
+			return assemble(productNo, pageable, productDetailCache.getVersion(productNo));
+		}
+
+		ProductDetailView view = productDetailCache.get(productNo);
+
+		if (view != null) {
+			return view;
+		}
+
+		//조회 전에 버전을 읽어둬야 조회 중 변경된 결과가 캐시에 들어가지 않음
+		long version = productDetailCache.getVersion(productNo);
+
+		view = assemble(productNo, pageable, version);
+
+		//일부 영역이 빈 값으로 대체된 화면은 캐시하지 않음
+		if (view.isComplete()) {
+			productDetailCache.put(productNo, view);
+		}
+
+		return view;
+	}
+
+	//상품을 먼저 조회한 뒤 리뷰, 문의, 판매자의 다른 상품을 스레드풀에서 동시에 조회
+	//각 영역은 자기 읽기 전용 트랜잭션(별도 커넥션)에서 실행되고 lazy 컬렉션도 그 안에서 초기화
+	//제한 시간 안에 끝나지 않은 영역은 빈 값으로 대체하고, 그 결과는 캐시하지 않음
+	private ProductDetailView assemble(long productNo, Pageable pageable, long version) {
+
+		Product product = readOnly(() -> productRepository.findById(productNo)
+				.orElseThrow(() -> new DataNotFoundException("상세정보가 존재하지 않아요!")));
+
+		long start = System.currentTimeMillis();
+
+		Future<Page<Review>> reviewsFuture = submit(() -> reviewService.getPnoReview(pageable, product), reviewTimeoutMillis);
+
+		Future<Page<Question>> questionsFuture = submit(() -> {
+
+			Page<Question> questions = questionService.getQuestionList(pageable, product);
+
+			//문의별 답변 목록(캐시에서 꺼내 쓸 때는 세션이 없으므로 미리 로딩)
+			for (Question question : questions) {
+				Hibernate.initialize(question.getAnswerList());
+			}
+			return questions;
+		}, questionTimeoutMillis);
+
+		Future<List<ProductCardDTO>> sellerProductsFuture = submit(() -> productRepository.findCards(
+				Specification.where(ProductSpecification.sellerIs(product.getUser().getId()))
+						.and(ProductSpecification.idNot(product.getId())),
+				Sort.by(Sort.Order.desc("date"), Sort.Order.desc("id")), 0, SELLER_PRODUCT_LIMIT),
+				sellerProductTimeoutMillis);
+
+		//함께 구매한 상품 id는 메모리에서, 카드만 조회
+		Future<List<ProductCardDTO>> boughtTogetherFuture = submit(() -> productService
+				.getCardsInOrder(coPurchaseIndex.getBoughtTogether(product.getId(), BOUGHT_TOGETHER_LIMIT)),
+				sellerProductTimeoutMillis);
+
+		Pageable emptyPageable = PageRequest.of(0, pageable.getPageSize());
+
+		//빈 값으로 대체한 영역이 하나라도 있으면 true
+		AtomicBoolean fallback = new AtomicBoolean();
+
+		Page<Review> reviews = await(reviewsFuture, start, reviewTimeoutMillis,
+				new PageImpl<>(Collections.emptyList(), emptyPageable, 0), "reviews", fallback);
+		Page<Question> questions = await(questionsFuture, start, questionTimeoutMillis,
+				new PageImpl<>(Collections.emptyList(), emptyPageable, 0), "questions", fallback);
+		List<ProductCardDTO> sellerProducts = await(sellerProductsFuture, start, sellerProductTimeoutMillis,
+				Collections.emptyList(), "sellerProducts", fallback);
+		List<ProductCardDTO> boughtTogether = await(boughtTogetherFuture, start, sellerProductTimeoutMillis,
+				Collections.emptyList(), "boughtTogether", fallback);
+
+		return new ProductDetailView(product, new Timestamp(product.getDate().getTime()).toLocalDateTime(),
+				sellerProducts, boughtTogether, reviews, questions, version, !fallback.get());
+	}
+
+	private <T> T readOnly(Supplier<T> supplier) {
+		return readOnly(supplier, TransactionDefinition.TIMEOUT_DEFAULT);
+	}
+
+	//timeoutSeconds: 트랜잭션 제한 시간(트랜잭션 안의 쿼리에 남은 시간이 쿼리 제한 시간으로 걸림)
+	private <T> T readOnly(Supplier<T> supplier, int timeoutSeconds) {
+
+		TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+		transactionTemplate.setReadOnly(true);
+		transactionTemplate.setTimeout(timeoutSeconds);
+
+		return transactionTemplate.execute(status -> supplier.get());
+	}
+
+	//영역 조회를 스레드풀에서 실행
+	//기다리기를 포기해도 스레드와 커넥션을 계속 잡고 있지 않도록 제한 시간을 쿼리 제한 시간으로도 걸어둠(JDBC는 초 단위라 올림)
+	//스레드풀이 가득 차서 거절되면 바로 실패한 future 반환(호출한 쪽에서 빈 값으로 대체)
+	private <T> Future<T> submit(Supplier<T> supplier, long timeoutMillis) {
+
+		int timeoutSeconds = (int) Math.max(1, (timeoutMillis + 999) / 1000);
+
+		try {
+			return productDetailExecutor.submit(() -> readOnly(supplier, timeoutSeconds));
+		} catch (RejectedExecutionException e) {
+			CompletableFuture<T> rejected = new CompletableFuture<>();
+			rejected.completeExceptionally(e);
+			return rejected;
+		}
+	}
+
+	//시작 시점부터 timeoutMillis 까지만 기다리고, 빈 값으로 대체하면 fallbackUsed에 표시
+	//(늦게 끝난 결과는 future에 남아 있어도 쓰지 않으므로 future 상태로 판단하지 않음)
+	private <T> T await(Future<T> future, long start, long timeoutMillis, T fallback, String section,
+			AtomicBoolean fallbackUsed) {
+
+		long remaining = Math.max(0, start + timeoutMillis - System.currentTimeMillis());
+
+		try {
+			return future.get(remaining, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			logFallback(section, "중단됨");
+		} catch (TimeoutException e) {
+			logFallback(section, "시간 초과(" + timeoutMillis + "ms)");
+		} catch (ExecutionException e) {
+			logFallback(section, "실패: " + e.getCause());
+		}
+
+		fallbackUsed.set(true);
+
+		//아직 실행 중이면 취소(스레드 인터럽트), 실행 중인 쿼리는 쿼리 제한 시간에 끝남
+		future.cancel(true);
+
+		return fallback;
+	}
+
+	//요청마다 찍지 않도록 LOG_INTERVAL_MILLIS에 한번만 출력(그 사이 건수는 합쳐서 출력)
+	private void logFallback(String section, String reason) {
+
+		long now = System.currentTimeMillis();
+		long last = lastFallbackLogAt.get();
+
+		if (now - last < LOG_INTERVAL_MILLIS || !lastFallbackLogAt.compareAndSet(last, now)) {
+			suppressedFallbacks.incrementAndGet();
+			return;
+		}
+
+		System.out.println("상품 상세 " + section + " 조회 " + reason + " (이전 로그 이후 " + suppressedFallbacks.getAndSet(0)
+				+ "건 더 빈 값으로 대체)");
+	}
+
+}
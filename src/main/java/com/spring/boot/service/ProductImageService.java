@@ -0,0 +1,272 @@
+package com.spring.boot.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.ServletWebRequest;
+
+//상품 이미지 전송
+//ETag/Last-Modified로 304 응답, Range 요청(부분 전송) 지원
+//파일 내용은 톰캣 sendfile(지원하지 않으면 FileChannel.transferTo)로 전송해서 힙에 올리지 않음
+@Service
+public class ProductImageService {
+
+	//ProductService.saveImage가 만드는 파일명(UUID_원본파일명)은 내용이 바뀌지 않으므로 immutable
+	private static final Pattern UUID_NAME = Pattern
+			.compile("^[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}_.+$");
+
+	private static final Pattern RANGE = Pattern.compile("^bytes=(\\d*)-(\\d*)$");
+
+	private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+	private static final String REVALIDATE = "public, max-age=3600";
+
+	//톰캣 sendfile 요청 속성
+	private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+	private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+	private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+	private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+	@Value("${img.upload.directory}")
+	private String imgUploadDirectory;
+
+	// 파일명 -> 크기/수정시간/ETag (UUID 파일명만 저장, 재검증 요청은 파일을 열지 않고 처리)
+	private final Map<String, ImageMeta> metas = new ConcurrentHashMap<>();
+
+	public void serve(String image, HttpServletRequest request, HttpServletResponse response) throws IOException {
+
+		Path path = resolve(image);
+
+		if (path == null) {
+			response.sendError(HttpServletResponse.SC_NOT_FOUND);
+			return;
+		}
+
+		ImageMeta meta = getMeta(image, path);
+
+		if (meta == null) {
+			response.sendError(HttpServletResponse.SC_NOT_FOUND);
+			return;
+		}
+
+		response.setHeader(HttpHeaders.CACHE_CONTROL, meta.immutable ? IMMUTABLE : REVALIDATE);
+		response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+		//If-None-Match/If-Modified-Since가 맞으면 304(파일 내용은 읽지 않음)
+		if (new ServletWebRequest(request, response).checkNotModified(meta.etag, meta.lastModified)) {
+			return;
+		}
+
+		long start = 0;
+		long end = meta.size - 1;
+
+		long[] range = parseRange(request, meta);
+
+		if (range != null) {
+
+			if (range.length == 0) {
+				response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + meta.size);
+				response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+				return;
+			}
+
+			start = range[0];
+			end = range[1];
+
+			response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+			response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + meta.size);
+		}
+
+		long length = end - start + 1;
+
+		String contentType = request.getServletContext().getMimeType(image);
+		response.setContentType(contentType != null ? contentType : "application/octet-stream");
+		response.setContentLengthLong(length);
+
+		if ("HEAD".equals(request.getMethod()) || length == 0) {
+			return;
+		}
+
+		//톰캣이 sendfile을 지원하면 응답을 커밋한 뒤 커널에서 바로 소켓으로 복사
+		if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+			request.setAttribute(SENDFILE_FILENAME, path.toString());
+			request.setAttribute(SENDFILE_START, start);
+			request.setAttribute(SENDFILE_END, end + 1);
+			return;
+		}
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+
+			OutputStream out = response.getOutputStream();
+			WritableByteChannel target = Channels.newChannel(out);
+
+			long position = start;
+			long remaining = length;
+
+			while (remaining > 0) {
+				long sent = channel.transferTo(position, remaining, target);
+
+				if (sent <= 0) {
+					break;
+				}
+				position += sent;
+				remaining -= sent;
+			}
+
+			out.flush();
+		} catch (NoSuchFileException e) {
+			//캐시된 정보가 있는데 파일이 삭제된 경우
+			metas.remove(image);
+			if (!response.isCommitted()) {
+				response.reset();
+				response.sendError(HttpServletResponse.SC_NOT_FOUND);
+			}
+		}
+	}
+
+	//상품 이미지 폴더 밖의 파일은 접근 불가
+	private Path resolve(String image) {
+
+		if (image == null || image.isEmpty() || image.contains("/") || image.contains("\\")) {
+			return null;
+		}
+
+		Path base = Paths.get(imgUploadDirectory).toAbsolutePath().normalize();
+		Path path = base.resolve(image).normalize();
+
+		return path.startsWith(base) ? path : null;
+	}
+
+	private ImageMeta getMeta(String image, Path path) throws IOException {
+
+		ImageMeta meta = metas.get(image);
+
+		if (meta != null) {
+			return meta;
+		}
+
+		if (!Files.isRegularFile(path)) {
+			return null;
+		}
+
+		BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+		long size = attributes.size();
+		//Last-Modified는 초 단위로 비교되므로 밀리초는 버림
+		long lastModified = attributes.lastModifiedTime().toMillis() / 1000 * 1000;
+		boolean immutable = UUID_NAME.matcher(image).matches();
+
+		meta = new ImageMeta(size, lastModified,
+				"\"" + Long.toHexString(size) + "-" + Long.toHexString(lastModified) + "\"", immutable);
+
+		//이름이 바뀌지 않는 파일만 저장(그 외는 매번 파일 정보를 다시 읽음)
+		if (immutable) {
+			metas.put(image, meta);
+		}
+
+		return meta;
+	}
+
+	//단일 Range만 지원(여러 구간 요청은 전체 전송)
+	//null: 전체 전송, 빈 배열: 범위 오류(416), {start, end}: 부분 전송
+	private long[] parseRange(HttpServletRequest request, ImageMeta meta) {
+
+		String header = request.getHeader(HttpHeaders.RANGE);
+
+		if (header == null) {
+			return null;
+		}
+
+		//If-Range의 ETag/날짜가 현재 파일과 다르면 전체 전송
+		String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+
+		if (ifRange != null && !ifRange.equals(meta.etag)) {
+			long ifRangeDate = -1;
+			try {
+				ifRangeDate = request.getDateHeader(HttpHeaders.IF_RANGE);
+			} catch (IllegalArgumentException e) {
+				//ETag 형식인데 다른 값
+			}
+			if (ifRangeDate != meta.lastModified) {
+				return null;
+			}
+		}
+
+		Matcher matcher = RANGE.matcher(header.trim());
+
+		if (!matcher.matches()) {
+			return null;
+		}
+
+		String from = matcher.group(1);
+		String to = matcher.group(2);
+
+		if (from.isEmpty() && to.isEmpty()) {
+			return null;
+		}
+
+		try {
+			long start;
+			long end;
+
+			if (from.isEmpty()) {
+				//bytes=-500 : 마지막 500바이트
+				long suffix = Long.parseLong(to);
+				if (suffix == 0) {
+					return new long[0];
+				}
+				start = Math.max(0, meta.size - suffix);
+				end = meta.size - 1;
+			} else {
+				start = Long.parseLong(from);
+
+				//bytes=500-100 처럼 끝이 시작보다 앞이면 잘못된 형식이므로 Range를 무시하고 전체 전송
+				if (!to.isEmpty() && Long.parseLong(to) < start) {
+					return null;
+				}
+				end = to.isEmpty() ? meta.size - 1 : Math.min(Long.parseLong(to), meta.size - 1);
+			}
+
+			if (start >= meta.size) {
+				return new long[0];
+			}
+
+			return new long[] { start, end };
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	private static class ImageMeta {
+
+		private final long size;
+		private final long lastModified;
+		private final String etag;
+		private final boolean immutable;
+
+		private ImageMeta(long size, long lastModified, String etag, boolean immutable) {
+			this.size = size;
+			this.lastModified = lastModified;
+			this.etag = etag;
+			this.immutable = immutable;
+		}
+	}
+
+}
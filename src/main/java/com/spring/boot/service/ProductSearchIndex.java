@@ -0,0 +1,230 @@
+package com.spring.boot.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.spring.boot.dao.ProductRepository;
+import com.spring.boot.model.Product;
+
+import lombok.RequiredArgsConstructor;
+
+//상품명, 상품설명, 카테고리의 2-gram/3-gram 역색인
+//LIKE '%검색어%' 풀스캔 대신 메모리에서 후보 상품 id를 찾아준다
+//한글은 음절 단위로 잘라서 색인(자모가 분리된 입력은 NFC로 합쳐서 비교)
+@Component
+@RequiredArgsConstructor
+public class ProductSearchIndex {
+
+	private static final int MIN_GRAM = 2;
+	private static final int MAX_GRAM = 3;
+
+	private final ProductRepository productRepository;
+
+	// n-gram -> 상품 id 목록
+	private final Map<String, Set<Long>> postings = new HashMap<>();
+
+	// 상품 id -> 정규화된 필드(상품명, 상품설명, 카테고리), 후보 검증과 삭제에 사용
+	private final Map<Long, String[]> documents = new HashMap<>();
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private volatile boolean ready = false;
+
+	//서버 시작시 전체 상품으로 색인 생성
+	@EventListener(ApplicationReadyEvent.class)
+	public void rebuild() {
+
+		List<Object[]> rows = productRepository.findSearchDocuments();
+
+		lock.writeLock().lock();
+		try {
+			postings.clear();
+			documents.clear();
+
+			for (Object[] row : rows) {
+				addDocument((Long) row[0], (String) row[1], (String) row[2], (String) row[3]);
+			}
+
+			ready = true;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	//상품 등록/수정시 해당 상품의 색인만 다시 생성
+	public void put(Product product) {
+
+		if (product == null || product.getId() == null) {
+			return;
+		}
+
+		lock.writeLock().lock();
+		try {
+			removeDocument(product.getId());
+			addDocument(product.getId(), product.getPname(), product.getContent(), product.getCategory());
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void remove(Long productId) {
+
+		lock.writeLock().lock();
+		try {
+			removeDocument(productId);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	//검색어가 포함된 상품 id 목록 반환
+	//색인으로 처리할 수 없는 경우(색인 생성 전, 한 글자 검색어)는 null 반환 -> 기존 LIKE 검색 사용
+	public List<Long> search(String keyword) {
+
+		String normalized = normalize(keyword);
+
+		if (!ready || normalized.length() < MIN_GRAM) {
+			return null;
+		}
+
+		Set<String> grams = queryGrams(normalized);
+
+		lock.readLock().lock();
+		try {
+			List<Set<Long>> lists = new ArrayList<>();
+
+			for (String gram : grams) {
+				Set<Long> ids = postings.get(gram);
+
+				//하나라도 없는 n-gram이 있으면 결과 없음
+				if (ids == null) {
+					return new ArrayList<>();
+				}
+				lists.add(ids);
+			}
+
+			//가장 짧은 목록부터 교집합
+			lists.sort(Comparator.comparingInt(Set::size));
+
+			List<Long> result = new ArrayList<>();
+
+			for (Long id : lists.get(0)) {
+				boolean all = true;
+
+				for (int i = 1; i < lists.size(); i++) {
+					if (!lists.get(i).contains(id)) {
+						all = false;
+						break;
+					}
+				}
+
+				//n-gram이 모두 있어도 순서가 다를 수 있으므로 원문으로 한번 더 확인
+				if (all && matches(documents.get(id), normalized)) {
+					result.add(id);
+				}
+			}
+
+			return result;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	//소문자 + NFC 정규화
+	public static String normalize(String text) {
+
+		if (text == null) {
+			return "";
+		}
+
+		return Normalizer.normalize(text, Normalizer.Form.NFC).toLowerCase(Locale.ROOT).trim();
+	}
+
+	private void addDocument(Long id, String pname, String content, String category) {
+
+		String[] fields = { normalize(pname), normalize(content), normalize(category) };
+		documents.put(id, fields);
+
+		for (String field : fields) {
+			for (String gram : indexGrams(field)) {
+				postings.computeIfAbsent(gram, k -> new HashSet<>()).add(id);
+			}
+		}
+	}
+
+	private void removeDocument(Long id) {
+
+		String[] fields = documents.remove(id);
+
+		if (fields == null) {
+			return;
+		}
+
+		for (String field : fields) {
+			for (String gram : indexGrams(field)) {
+				Set<Long> ids = postings.get(gram);
+
+				if (ids != null) {
+					ids.remove(id);
+
+					if (ids.isEmpty()) {
+						postings.remove(gram);
+					}
+				}
+			}
+		}
+	}
+
+	private boolean matches(String[] fields, String keyword) {
+
+		if (fields == null) {
+			return false;
+		}
+
+		return Arrays.stream(fields).anyMatch(field -> field.contains(keyword));
+	}
+
+	//색인할 때는 2-gram, 3-gram 모두 생성
+	private static Set<String> indexGrams(String text) {
+
+		Set<String> grams = new LinkedHashSet<>();
+
+		for (int n = MIN_GRAM; n <= MAX_GRAM; n++) {
+			for (int i = 0; i + n <= text.length(); i++) {
+				grams.add(text.substring(i, i + n));
+			}
+		}
+
+		return grams;
+	}
+
+	//검색할 때는 가장 긴 n-gram만 사용(목록이 짧아서 교집합이 빠름)
+	private static Set<String> queryGrams(String keyword) {
+
+		Set<String> grams = new LinkedHashSet<>();
+
+		int n = Math.min(keyword.length(), MAX_GRAM);
+
+		for (int i = 0; i + n <= keyword.length(); i++) {
+			grams.add(keyword.substring(i, i + n));
+		}
+
+		return grams;
+	}
+
+}
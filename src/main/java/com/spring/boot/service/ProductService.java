@@ -5,14 +5,20 @@ import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -22,17 +28,20 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.spring.boot.config.DataNotFoundException;
+import com.spring.boot.config.OutOfStockException;
 import com.spring.boot.dao.ProductRepository;
 import com.spring.boot.dao.UserRepository;
 import com.spring.boot.dto.ItemDataForm;
 import com.spring.boot.dto.OrderResultForm;
 import com.spring.boot.dto.PageRequestDTO;
 import com.spring.boot.dto.PageResultDTO;
+import com.spring.boot.dto.ProductCardDTO;
 import com.spring.boot.dto.ProductDTO;
 import com.spring.boot.dto.ProductForm;
 import com.spring.boot.model.OrderList;
 import com.spring.boot.model.Product;
 import com.spring.boot.model.SiteUser;
+import com.spring.boot.util.TransactionUtil;
 
 import lombok.RequiredArgsConstructor;
 
@@ -44,6 +53,13 @@ public class ProductService {
 	@Autowired
 	private final ProductRepository productRepository; //서비스와 레포 연결
 	private final UserRepository userRepository;
+	private final ProductSearchIndex productSearchIndex;
+	private final CategoryStatistics categoryStatistics;
+	private final SearchResultCache searchResultCache;
+	private final ProductSuggester productSuggester;
+	private final ProductDetailCache productDetailCache;
+	private final SalesRanking salesRanking;
+	private final MainPageHtmlCache mainPageHtmlCache;
 	
 	//최신글부터 전체셀렉
 	public Page<Product> getTotalLists(Pageable pageable){
@@ -101,6 +117,13 @@ public class ProductService {
         
         // 상품 등록
         productRepository.save(product);
+        
+        // 검색 색인, 자동완성, 카테고리 통계, 카테고리 판매 순위는 커밋된 뒤에 반영(롤백되면 반영 안함)
+        TransactionUtil.afterCommit(() -> applyToIndexes(product));
+        
+        // 검색 결과 캐시
+        searchResultCache.invalidate(product.getPname(), product.getContent(), product.getCategory());
+        mainPageHtmlCache.invalidate();
     }
 	
 	//상품 출력
@@ -151,6 +174,11 @@ public class ProductService {
         Product existingProduct = productRepository.findById(id).orElse(null);
 
         if (existingProduct != null) {
+        	
+        	// 수정 전 값과 관련된 검색 결과 캐시 삭제
+        	searchResultCache.invalidate(existingProduct.getPname(), existingProduct.getContent(),
+        			existingProduct.getCategory());
+        	
         	existingProduct.setPname(productForm.getPname());
         	existingProduct.setContent(productForm.getContent());
         	existingProduct.setPrice(productForm.getPrice());
@@ -167,9 +195,27 @@ public class ProductService {
             existingProduct.setImage3(imagePaths.size() >= 4 ? imagePaths.get(3) : null);
 
             productRepository.save(existingProduct);
+            
+            // 검색 색인, 자동완성, 카테고리 통계, 카테고리 판매 순위는 커밋된 뒤에 반영(롤백되면 반영 안함)
+            TransactionUtil.afterCommit(() -> applyToIndexes(existingProduct));
+            
+            // 검색 결과 캐시, 상세 화면 캐시
+            searchResultCache.invalidate(existingProduct.getPname(), existingProduct.getContent(),
+            		existingProduct.getCategory());
+            productDetailCache.evict(existingProduct.getId());
+            mainPageHtmlCache.invalidate();
         }
     }
 
+    //등록/수정된 상품을 메모리 색인/통계에 반영
+    private void applyToIndexes(Product product) {
+    	
+    	productSearchIndex.put(product);
+    	productSuggester.put(product);
+    	categoryStatistics.apply(product);
+    	salesRanking.updateCategory(product.getId(), product.getCategory());
+    }
+    
     private List<String> uploadImages(List<MultipartFile> images) {
         List<String> imagePaths = new ArrayList<>();
         
@@ -211,18 +257,82 @@ public class ProductService {
 	}
 	
 	
+	@Transactional
 	public void updateProductStock(List<ItemDataForm> list) {
 		
+		updateProductStock(list, getProductsWithSeller(list));
+		
+	}
+	
+	//이미 조회한 상품들의 재고 감소
+	//읽은 재고에서 빼서 저장하면 동시에 주문한 요청끼리 덮어써서 재고가 음수가 될 수 있으므로
+	//DB에서 "재고 >= 주문 수량"일 때만 감소시키고, 한 상품이라도 부족하면 예외(트랜잭션 전체 롤백)
+	@Transactional
+	public void updateProductStock(List<ItemDataForm> list, Map<Long, Product> products) {
+		
 		for(ItemDataForm productData : list) {
-			Long id = productData.getId();
-			
-			Product product = productRepository.findById(id).get();
-			int newstock = product.getStock()-productData.getCount();
-			product.setStock(newstock);
+			if(productData.getCount() <= 0) {
+				throw new IllegalArgumentException("주문 수량이 올바르지 않아요!");
+			}
+		}
+		
+		if(list.isEmpty()) {
+			return;
+		}
+		
+		int[] updated = productRepository.decreaseStock(list);
+		
+		for(int i = 0; i < updated.length; i++) {
+			if(updated[i] == 0) {
+				throw new OutOfStockException(products.get(list.get(i).getId()).getPname() + " 상품의 재고가 부족합니다");
+			}
+		}
+		
+		//DB 값을 직접 바꿨으므로 조회해 둔 상품은 변경 감지 대상에서 빼고 통계/캐시용 값만 맞춤
+		//조회해 둔 재고는 그 사이 다른 주문으로 줄었을 수 있으므로 감소된 재고를 다시 읽음(행 잠금 중이라 최신 값)
+		productRepository.detach(products.values());
+		
+		Map<Long, Integer> stocks = productRepository.findStocks(
+				list.stream().map(ItemDataForm::getId).collect(Collectors.toSet()));
+		
+		for(ItemDataForm productData : list) {
+			Product product = products.get(productData.getId());
+			product.setStock(stocks.getOrDefault(product.getId(), product.getStock()-productData.getCount()));
 			
-			productRepository.save(product);
+			// 카테고리 통계(재고 있는 상품 수)는 커밋된 뒤에, 상세 화면 캐시 반영
+			TransactionUtil.afterCommit(() -> categoryStatistics.apply(product));
+			productDetailCache.evict(product.getId());
+		}
+		
+		// 메인 화면(상품 카드의 재고/판매 여부) 다시 만들기
+		mainPageHtmlCache.invalidate();
+	}
+	
+	//주문할 상품들을 판매자와 함께 한번에 조회(상품 id -> 상품)
+	public Map<Long, Product> getProductsWithSeller(List<ItemDataForm> list) {
+		
+		Set<Long> ids = new LinkedHashSet<>();
+		
+		for(ItemDataForm productData : list) {
+			ids.add(productData.getId());
 		}
 		
+		Map<Long, Product> products = new HashMap<>();
+		
+		if(ids.isEmpty()) {
+			return products;
+		}
+		
+		for(Product product : productRepository.findWithSellerByIdIn(ids)) {
+			products.put(product.getId(), product);
+		}
+		
+		//그 사이 삭제된 상품이 있으면 주문 불가
+		if(products.size() != ids.size()) {
+			throw new DataNotFoundException("주문할 상품이 존재하지 않아요!");
+		}
+		
+		return products;
 	}
 	
 	public List<OrderResultForm> getResultForm(List<OrderList> orderLists){
@@ -245,61 +355,260 @@ public class ProductService {
 		return lists;
 	}
 	
-	//검색기능을 포함한 상품 리스트(검색 방식에 따라 sorting 다르게 적용 & 카테고리 또는 제품명으로 검색)
-	public PageResultDTO<ProductDTO, Product> getSearchList(PageRequestDTO requestDTO, String sort) {
-	    
-		Pageable pageable;
+	//이미 조회한 상품/판매자로 주문 결과 만들기(추가 조회 없음)
+	public List<OrderResultForm> getResultForm(List<OrderList> orderLists, Map<Long, Product> products){
+		List<OrderResultForm> lists = new ArrayList<OrderResultForm>();
 		
-		if("priceAsc".equals(sort)) { //낮은 가격 순			
-			pageable = requestDTO.getPageable(Sort.by("price").ascending());
-		}else if("priceDesc".equals(sort)){ //높은 가격 순		
-			pageable = requestDTO.getPageable(Sort.by("price").descending());
-		}else if("category".equals(sort)) { //카테고리순
-			pageable = requestDTO.getPageable(Sort.by("category").ascending());
-		}else { //기본값은 신상품순
-			pageable = requestDTO.getPageable(Sort.by("date").descending());
+		for (OrderList OrderListData : orderLists) {
+			OrderResultForm orderResultForm = new OrderResultForm();
+			Product product = products.get(OrderListData.getProductno());
+			orderResultForm.setOrderNo(OrderListData.getOrderNo());
+			orderResultForm.setProductName(product.getPname());
+			orderResultForm.setImage(product.getImage());
+			orderResultForm.setSellerId(product.getUser().getUserName());
+			orderResultForm.setCount(OrderListData.getCount());
+			orderResultForm.setPrice(OrderListData.getPrice());
+			
+			lists.add(orderResultForm);
 		}
+		
+		return lists;
+	}
+	
+	//검색기능을 포함한 상품 리스트(검색 방식에 따라 sorting 다르게 적용 & 카테고리 또는 제품명으로 검색)
+	//상품 카드에 필요한 컬럼만 조회(판매자, 리뷰 목록은 가져오지 않음)
+	public PageResultDTO<ProductDTO, ProductCardDTO> getSearchList(PageRequestDTO requestDTO, String sort) {
+	    
+		Sort sorting = getSort(sort);
+	    
+	    //같은 검색 결과가 캐시에 있으면 저장된 상품 id로만 조회(재고 등은 항상 최신값)
+	    //조회 많은순은 조회수가 계속 바뀌어 순서가 고정되면 안되므로 캐시하지 않음
+	    boolean cacheable = !"mostViewed".equals(sort);
+	    String cacheKey = SearchResultCache.key(requestDTO, sort);
+	    SearchResultCache.Entry cached = cacheable ? searchResultCache.get(cacheKey) : null;
+	    
+	    if (cached != null) {
+	    	return toPageResult(getCardsInOrder(cached.getIds()), cached.getTotal(), sorting, requestDTO);
+	    }
+	    
+	    long generation = searchResultCache.getGeneration();
 	    
 		//Specification을 활용한 검색
 	    Specification<Product> spec = ProductSpecification.isGreaterThanZero();
 	    	  
-	    spec = spec.and(ProductSpecification.hasKeyword(requestDTO.getKeyword()));
-
-	    Page<Product> result = productRepository.findAll(spec, pageable);
+	    spec = spec.and(getKeywordSpec(requestDTO.getKeyword()));
 	    
-	    Function<Product, ProductDTO> fn = (entity -> entityToDto(entity));
+	    List<ProductCardDTO> rows = getCards(spec, sorting, requestDTO);
+	    Long total = getTotal(spec, requestDTO);
 	    
-	    return new PageResultDTO<>(result, fn);
+	    if (cacheable) {
+	    	List<Long> ids = rows.stream().map(ProductCardDTO::getId).collect(Collectors.toList());
+	    	searchResultCache.put(cacheKey, requestDTO.getKeyword(), ids, total, generation);
+	    }
+	    
+	    return toPageResult(rows, total, sorting, requestDTO);
+	}
+	
+	//검색어 조건 만들기
+	//일반 검색어는 n-gram 색인에서 후보 id를 받아 id IN 조건으로 검색(LIKE 풀스캔 방지)
+	//카테고리 검색, 한 글자 검색어, 색인 준비 전에는 기존 방식 사용
+	private Specification<Product> getKeywordSpec(String keyword) {
+		
+		if (keyword == null || keyword.trim().isEmpty()) {
+			return null;
+		}
+		
+		if (ProductSpecification.resolveCategory(keyword) == null) {
+			
+			List<Long> candidateIds = productSearchIndex.search(keyword);
+			
+			if (candidateIds != null) {
+				
+				//후보가 없으면 id 조건이 항상 거짓이 되도록 함
+				if (candidateIds.isEmpty()) {
+					candidateIds.add(-1L);
+				}
+				
+				return ProductSpecification.idIn(candidateIds);
+			}
+		}
+		
+		return ProductSpecification.hasKeyword(keyword);
 	}
 	
 	//베스트 상품 리스트(검색 방식에 따라 sorting 다르게 적용 & 카테고리 또는 제품명으로 검색)
-	public PageResultDTO<ProductDTO, Product> getBestProducts(List<Long> productIdList, 
+	public PageResultDTO<ProductDTO, ProductCardDTO> getBestProducts(List<Long> productIdList, 
 															PageRequestDTO requestDTO, String sort) {
 	    
-		Pageable pageable;
+		Sort sorting = getSort(sort);
+	    
+		List<Long> ids = new ArrayList<>(productIdList);
+		
+		//빈 목록이면 id 조건이 항상 거짓이 되도록 함
+		if (ids.isEmpty()) {
+			ids.add(-1L);
+		}
+		
+		//productIdList에 있는 Id값과 일치하는 데이터 찾기
+		Specification<Product> spec = ProductSpecification.idIn(ids);
+		
+		return toPageResult(getCards(spec, sorting, requestDTO), getTotal(spec, requestDTO), sorting, requestDTO);
+	}
+	
+	//순위가 정해진 상품 목록(트렌드 등)을 순위 그대로 페이지로 나눠서 조회
+	//순위 목록이 메모리에 있으므로 페이지 번호 방식만 사용(해당 페이지 id만 조회)
+	public PageResultDTO<ProductDTO, ProductCardDTO> getRankedProducts(List<Long> rankedIds, PageRequestDTO requestDTO) {
+		
+		Pageable pageable = requestDTO.getPageable(Sort.unsorted());
+		
+		int from = (int) Math.min(pageable.getOffset(), rankedIds.size());
+		int to = Math.min(from + pageable.getPageSize(), rankedIds.size());
+		
+		List<ProductCardDTO> rows = getCardsInOrder(rankedIds.subList(from, to));
+		
+		return new PageResultDTO<>(new PageImpl<>(rows, pageable, rankedIds.size()), card -> cardToDto(card));
+	}
+	
+	//정렬 방식(MainController의 sort 값)에 따른 정렬 기준
+	private Sort getSort(String sort) {
 		
 		if("priceAsc".equals(sort)) { //낮은 가격 순			
-			pageable = requestDTO.getPageable(Sort.by("price").ascending());
+			return Sort.by("price").ascending();
 		}else if("priceDesc".equals(sort)){ //높은 가격 순		
-			pageable = requestDTO.getPageable(Sort.by("price").descending());
+			return Sort.by("price").descending();
 		}else if("category".equals(sort)) { //카테고리순
-			pageable = requestDTO.getPageable(Sort.by("category").ascending());
+			return Sort.by("category").ascending();
+		}else if("mostViewed".equals(sort)) { //조회수 많은 순
+			return Sort.by("views").descending();
 		}else { //기본값은 신상품순
-			pageable = requestDTO.getPageable(Sort.by("date").descending());
+			return Sort.by("date").descending();
+		}
+	}
+	
+	//상품 카드 조회
+	//페이지 번호 방식은 OFFSET, 커서 방식은 (정렬값, id) 기준으로 커서 다음 데이터만 size + 1개 조회
+	//커서 방식은 페이지가 깊어져도 비용이 같음
+	private List<ProductCardDTO> getCards(Specification<Product> spec, Sort sorting, PageRequestDTO requestDTO) {
+		
+		if (!requestDTO.isKeyset()) {
+			Pageable pageable = requestDTO.getPageable(sorting);
+			
+			return productRepository.findCards(spec, sorting, pageable.getOffset(), pageable.getPageSize());
+		}
+		
+		Sort.Order order = sorting.iterator().next();
+		String field = order.getProperty();
+		boolean desc = order.isDescending();
+		
+		//같은 정렬값 안에서는 id 순서로 고정
+		Sort seekSort = sorting.and(desc ? Sort.by("id").descending() : Sort.by("id").ascending());
+		
+		Specification<Product> seekSpec = spec;
+		String cursor = requestDTO.getCursor();
+		int separator = cursor.lastIndexOf(',');
+		
+		if (separator > 0) {
+			try {
+				Comparable<?> lastValue = parseCursorValue(field, cursor.substring(0, separator));
+				Long lastId = Long.valueOf(cursor.substring(separator + 1));
+				
+				seekSpec = Specification.where(spec).and(ProductSpecification.seekAfter(field, lastValue, lastId, desc));
+			} catch (NumberFormatException e) {
+				//잘못된 커서는 첫 페이지로 처리
+			}
+		}
+		
+		return productRepository.findCards(seekSpec, seekSort, 0, requestDTO.getSize() + 1);
+	}
+	
+	//전체 개수, 커서 방식은 withCount=true일 때만 count 쿼리
+	private Long getTotal(Specification<Product> spec, PageRequestDTO requestDTO) {
+		
+		if (requestDTO.isKeyset() && !requestDTO.isWithCount()) {
+			return null;
+		}
+		
+		return productRepository.count(spec);
+	}
+	
+	//조회한 상품 카드 목록을 화면용 페이징 결과로 변환
+	//keyset 방식은 size + 1개 조회 결과, total은 count 쿼리를 안했으면 null
+	private PageResultDTO<ProductDTO, ProductCardDTO> toPageResult(List<ProductCardDTO> rows, Long total,
+			Sort sorting, PageRequestDTO requestDTO) {
+		
+		Function<ProductCardDTO, ProductDTO> fn = (card -> cardToDto(card));
+		
+		if (requestDTO.isKeyset()) {
+			String field = sorting.iterator().next().getProperty();
+			
+			return new PageResultDTO<>(rows, requestDTO.getSize(), fn, card -> toCursor(field, card), total);
+		}
+		
+		return new PageResultDTO<>(new PageImpl<>(rows, requestDTO.getPageable(sorting), total), fn);
+	}
+	
+	//id 목록 순서대로 상품 카드 조회
+	public List<ProductCardDTO> getCardsInOrder(List<Long> ids) {
+		
+		if (ids.isEmpty()) {
+			return new ArrayList<>();
+		}
+		
+		Map<Long, ProductCardDTO> cardMap = new HashMap<>();
+		
+		for (ProductCardDTO card : productRepository.findCards(ProductSpecification.idIn(ids), Sort.unsorted(), 0, ids.size())) {
+			cardMap.put(card.getId(), card);
+		}
+		
+		List<ProductCardDTO> cards = new ArrayList<>();
+		
+		for (Long id : ids) {
+			ProductCardDTO card = cardMap.get(id);
+			
+			//그 사이 삭제된 상품은 제외
+			if (card != null) {
+				cards.add(card);
+			}
+		}
+		
+		return cards;
+	}
+	
+	//커서 = "정렬값,상품id" (날짜는 epoch millis)
+	private String toCursor(String field, ProductCardDTO card) {
+		
+		Object value;
+		
+		if ("date".equals(field)) {
+			value = card.getDate().getTime();
+		} else if ("price".equals(field)) {
+			value = card.getPrice();
+		} else if ("views".equals(field)) {
+			value = card.getViews();
+		} else {
+			value = card.getCategory();
+		}
+		
+		return value + "," + card.getId();
+	}
+	
+	private Comparable<?> parseCursorValue(String field, String value) {
+		
+		if ("date".equals(field)) {
+			return new Date(Long.parseLong(value));
+		} else if ("price".equals(field)) {
+			return Integer.valueOf(value);
+		} else if ("views".equals(field)) {
+			return Long.valueOf(value);
+		} else {
+			return value;
 		}
-	    
-		//productIdList에 있는 Id값과 일치하는 데이터 찾기
-	    Page<Product> result = productRepository.findByIdIn(productIdList, pageable);
-	    
-	    Function<Product, ProductDTO> fn = (entity -> entityToDto(entity));
-	    
-	    return new PageResultDTO<>(result, fn);
 	}
 	
 	// 가장 최근 등록한 8개 제품 데이터 가져오기
-	public List<Product> getTop8NewestProducts() {
+	public List<ProductCardDTO> getTop8NewestProducts() {
 	    
-		return productRepository.findTop8ByOrderByDateDesc();
+		return productRepository.findCards(null, Sort.by("date").descending(), 0, 8);
 		
 	}
 	
@@ -310,16 +619,27 @@ public class ProductService {
 		
 	}
 	
-	// 받아온 idList로 판매량이 높은 상품 데이터 가져오기
-	public List<Product> getTopNSellingProducts(List<Long> productIdList) {
-	    
-	    // 제품 ID에 해당하는 Product 엔터티 리스트 조회
-	    List<Product> products = productRepository.findByIdIn(productIdList);
+	// 받아온 idList로 판매량이 높은 상품 데이터 가져오기(idList 순서대로)
+	public List<ProductCardDTO> getTopNSellingProducts(List<Long> productIdList) {
 	    
-	    // 받아온 idList의 순서대로 Product 엔터티 리스트 정렬
-	    products.sort(Comparator.comparingInt(p -> productIdList.indexOf(p.getId())));
-	    
-	    return products;
+	    return getCardsInOrder(productIdList);
+	}
+	
+	public ProductDTO cardToDto(ProductCardDTO card){
+		
+		ProductDTO dto = ProductDTO.builder()
+				.id(card.getId())
+				.category(card.getCategory())
+				.pname(card.getPname())
+				.content(card.getContent())
+				.price(card.getPrice())
+				.date(card.getDate())
+				.stock(card.getStock())
+				.selling(card.isSelling())
+				.image(card.getImage())
+				.build();
+		
+		return dto;
 	}
 	
 	public Product dtoToEntity(ProductDTO dto){
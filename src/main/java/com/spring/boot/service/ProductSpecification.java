@@ -1,8 +1,13 @@
 package com.spring.boot.service;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
+import javax.persistence.criteria.Expression;
 import javax.persistence.criteria.Predicate;
 
 import org.springframework.data.jpa.domain.Specification;
@@ -11,10 +16,11 @@ import com.spring.boot.model.Product;
 
 public class ProductSpecification {
 
-	private static final Map<String, Boolean> CATEGORIES = new HashMap<>();
+	// 등록 순서를 유지(카테고리별 통계 화면에서 같은 순서로 보여줌)
+	private static final Map<String, Boolean> CATEGORIES = new LinkedHashMap<>();
 
     static {
-        // 카테고리를 HashMap에 추가
+        // 카테고리를 LinkedHashMap에 추가
         String[] categories = {
             "데스크탑", "노트북", "PC주변기기", "모바일", "카메라", "영상",
             "주방", "계절", "미용", "건강", "여성의류", "남성의류",
@@ -46,32 +52,9 @@ public class ProductSpecification {
         	
         	
         	//키워드가 카테고리로 검색하는 경우 정확한 카테고리 아이템만 검색            	
-        	if (isCategorySearch(lowerCaseKeyword)) {
-        		
-        		String changedKeyword = "";
-        		
-        		//키워드 value값과 일치하지 않는 데이터 예외 처리
-        		if(lowerCaseKeyword.equals("c_신발")) {
-            		changedKeyword = "c_잡화";
-            	}else if(lowerCaseKeyword.equals("c_침구")) {
-            		changedKeyword = "c_인테리어";
-            	}else if(lowerCaseKeyword.equals("c_생활")) {
-            		changedKeyword = "c_생활용품";
-            	}else if(lowerCaseKeyword.equals("c_여성 의류")) {
-            		changedKeyword = "c_여성의류";
-            	}else if(lowerCaseKeyword.equals("c_남성 의류")) {
-            		changedKeyword = "c_남성의류";
-            	}else if(lowerCaseKeyword.equals("c_아동 의류")) {
-            		changedKeyword = "c_아동의류";
-            	}else if(lowerCaseKeyword.equals("c_이벤트 용품")) {
-            		changedKeyword = "c_이벤트";
-            	}else if(lowerCaseKeyword.equals("c_국내도서")) {
-            		changedKeyword = "c_도서";
-            	}else {
-            		changedKeyword = lowerCaseKeyword;
-            	}
-        		
-                String category = changedKeyword.substring(2); // "c_"를 제외하고 소문자로 변환
+        	String category = resolveCategory(lowerCaseKeyword);
+        	
+        	if (category != null) {
                 Predicate categoryPredicate = cb.equal(cb.lower(root.get("category")), category);
                 return categoryPredicate;
             }
@@ -82,10 +65,86 @@ public class ProductSpecification {
         };
     }
     
+    //검색 인덱스가 찾아준 후보 상품 id로만 검색
+    public static Specification<Product> idIn(Collection<Long> ids) {
+        return (root, query, cb) -> root.get("id").in(ids);
+    }
+    
+    //keyset 페이징: 마지막으로 본 (정렬값, id) 다음 데이터만 조회
+    //정렬값이 같은 경우 id로 순서를 정함
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+	public static Specification<Product> seekAfter(String field, Comparable lastValue, Long lastId, boolean desc) {
+        return (root, query, cb) -> {
+        	
+        	Expression<Comparable> value = root.get(field);
+        	Expression<Long> id = root.get("id");
+        	
+        	Predicate after = desc ? cb.lessThan(value, lastValue) : cb.greaterThan(value, lastValue);
+        	Predicate sameValueAfterId = cb.and(cb.equal(value, lastValue),
+        			desc ? cb.lessThan(id, lastId) : cb.greaterThan(id, lastId));
+        	
+        	return cb.or(after, sameValueAfterId);
+        };
+    }
+    
+    //판매자의 상품만 조회
+    public static Specification<Product> sellerIs(Long userId) {
+        return (root, query, cb) -> cb.equal(root.get("user").get("id"), userId);
+    }
+    
+    //해당 상품 제외
+    public static Specification<Product> idNot(Long id) {
+        return (root, query, cb) -> cb.notEqual(root.get("id"), id);
+    }
+    
     public static Specification<Product> isGreaterThanZero() {
         return (root, query, cb) -> cb.greaterThan(root.get("id"), 0L);
     }
     
+    //카테고리 검색("c_카테고리")이면 실제 카테고리명을, 아니면 null 반환
+    public static String resolveCategory(String keyword) {
+    	
+    	if (keyword == null) {
+    		return null;
+    	}
+    	
+    	String lowerCaseKeyword = keyword.toLowerCase().trim();
+    	
+    	if (!isCategorySearch(lowerCaseKeyword)) {
+    		return null;
+    	}
+    	
+    	String changedKeyword = "";
+		
+		//키워드 value값과 일치하지 않는 데이터 예외 처리
+		if(lowerCaseKeyword.equals("c_신발")) {
+    		changedKeyword = "c_잡화";
+    	}else if(lowerCaseKeyword.equals("c_침구")) {
+    		changedKeyword = "c_인테리어";
+    	}else if(lowerCaseKeyword.equals("c_생활")) {
+    		changedKeyword = "c_생활용품";
+    	}else if(lowerCaseKeyword.equals("c_여성 의류")) {
+    		changedKeyword = "c_여성의류";
+    	}else if(lowerCaseKeyword.equals("c_남성 의류")) {
+    		changedKeyword = "c_남성의류";
+    	}else if(lowerCaseKeyword.equals("c_아동 의류")) {
+    		changedKeyword = "c_아동의류";
+    	}else if(lowerCaseKeyword.equals("c_이벤트 용품")) {
+    		changedKeyword = "c_이벤트";
+    	}else if(lowerCaseKeyword.equals("c_국내도서")) {
+    		changedKeyword = "c_도서";
+    	}else {
+    		changedKeyword = lowerCaseKeyword;
+    	}
+		
+        return changedKeyword.substring(2); // "c_"를 제외한 카테고리명
+    }
+    
+    //전체 카테고리명 목록
+    public static List<String> getCategories() {
+    	return Collections.unmodifiableList(new ArrayList<>(CATEGORIES.keySet()));
+    }
+    
     //카테고리 검색인지 검증
     private static boolean isCategorySearch(String keyword) {
         if (keyword != null && keyword.length() > 2 && keyword.startsWith("c_")) {
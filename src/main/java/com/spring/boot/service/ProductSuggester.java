@@ -0,0 +1,258 @@
+package com.spring.boot.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.spring.boot.dao.ProductRepository;
+import com.spring.boot.dto.SuggestionDTO;
+import com.spring.boot.model.Product;
+
+import lombok.RequiredArgsConstructor;
+
+//검색창 자동완성
+//상품명과 카테고리명을 정렬된 맵(skip list)에 넣어두고 접두어 범위 조회로 찾음(DB 조회 없음)
+//상품명은 단어마다 시작 위치를 키로 넣어서 "노트북"으로 "삼성 노트북"도 찾을 수 있음
+//초성(ㄴㅌㅂ)으로도 검색 가능
+@Component
+@RequiredArgsConstructor
+public class ProductSuggester {
+
+	private static final char[] CHOSEONG = {
+		'ㄱ', 'ㄲ', 'ㄴ', 'ㄷ', 'ㄸ', 'ㄹ', 'ㅁ', 'ㅂ', 'ㅃ', 'ㅅ',
+		'ㅆ', 'ㅇ', 'ㅈ', 'ㅉ', 'ㅊ', 'ㅋ', 'ㅌ', 'ㅍ', 'ㅎ'
+	};
+
+	private static final char HANGUL_BEGIN = 0xAC00;
+	private static final char HANGUL_END = 0xD7A3;
+
+	// 키 = 접두어 검색 대상 문자열 + 구분자 + 종류 + 구분자 + 정규화된 전체 이름(같은 접두어를 가진 이름끼리 구분)
+	private static final char SEPARATOR = '\u0000';
+
+	private static final int MAX_SUGGESTIONS = 10;
+
+	private final ProductRepository productRepository;
+
+	private final NavigableMap<String, Entry> byText = new ConcurrentSkipListMap<>();
+	private final NavigableMap<String, Entry> byChoseong = new ConcurrentSkipListMap<>();
+
+	// 카테고리는 따로 보관(먼저 보여줄 카테고리를 찾으려고 상품까지 전부 훑지 않도록)
+	private final NavigableMap<String, Entry> categoriesByText = new ConcurrentSkipListMap<>();
+	private final NavigableMap<String, Entry> categoriesByChoseong = new ConcurrentSkipListMap<>();
+
+	// 상품 id -> 반영된 상품명(수정시 이전 이름을 빼기 위해 보관)
+	private final Map<Long, String> productNames = new HashMap<>();
+
+	@EventListener(ApplicationReadyEvent.class)
+	public synchronized void rebuild() {
+
+		byText.clear();
+		byChoseong.clear();
+		categoriesByText.clear();
+		categoriesByChoseong.clear();
+		productNames.clear();
+
+		for (String category : ProductSpecification.getCategories()) {
+			add(new Entry(category, "c_" + category, "category"));
+		}
+
+		for (Object[] row : productRepository.findSearchDocuments()) {
+			putName((Long) row[0], (String) row[1]);
+		}
+	}
+
+	//상품 등록/수정시 해당 상품명만 교체
+	public synchronized void put(Product product) {
+
+		if (product == null || product.getId() == null) {
+			return;
+		}
+
+		putName(product.getId(), product.getPname());
+	}
+
+	//접두어(또는 초성)로 최대 10개 추천, 카테고리를 먼저 보여줌
+	public List<SuggestionDTO> suggest(String query) {
+
+		String prefix = ProductSearchIndex.normalize(query);
+
+		if (prefix.isEmpty()) {
+			return new ArrayList<>();
+		}
+
+		boolean choseong = isChoseongQuery(prefix);
+
+		Set<Entry> suggestions = new LinkedHashSet<>();
+
+		//카테고리 먼저, 남은 자리만큼 상품(채워지면 더 훑지 않음)
+		collect(choseong ? categoriesByChoseong : categoriesByText, prefix, suggestions);
+		collect(choseong ? byChoseong : byText, prefix, suggestions);
+
+		List<SuggestionDTO> result = new ArrayList<>();
+
+		for (Entry entry : suggestions) {
+			result.add(new SuggestionDTO(entry.label, entry.keyword, entry.type));
+		}
+
+		return result;
+	}
+
+	private static void collect(NavigableMap<String, Entry> source, String prefix, Set<Entry> suggestions) {
+
+		for (Entry entry : source.subMap(prefix, true, prefix + Character.MAX_VALUE, true).values()) {
+
+			if (suggestions.size() >= MAX_SUGGESTIONS) {
+				return;
+			}
+			suggestions.add(entry);
+		}
+	}
+
+	//한글 음절을 초성으로 변환(한글이 아닌 문자는 그대로)
+	public static String toChoseong(String text) {
+
+		StringBuilder sb = new StringBuilder(text.length());
+
+		for (char c : text.toCharArray()) {
+			if (c >= HANGUL_BEGIN && c <= HANGUL_END) {
+				sb.append(CHOSEONG[(c - HANGUL_BEGIN) / 588]);
+			} else {
+				sb.append(c);
+			}
+		}
+
+		return sb.toString();
+	}
+
+	//검색어가 모두 자음(ㄱ~ㅎ)과 공백이면 초성 검색
+	private static boolean isChoseongQuery(String query) {
+
+		boolean hasConsonant = false;
+
+		for (char c : query.toCharArray()) {
+			if (c >= 'ㄱ' && c <= 'ㅎ') {
+				hasConsonant = true;
+			} else if (c != ' ') {
+				return false;
+			}
+		}
+
+		return hasConsonant;
+	}
+
+	private void putName(Long productId, String pname) {
+
+		String before = productNames.remove(productId);
+
+		if (before != null) {
+			remove(new Entry(before, before, "product"));
+		}
+
+		if (pname != null && !pname.trim().isEmpty()) {
+			productNames.put(productId, pname.trim());
+			add(new Entry(pname.trim(), pname.trim(), "product"));
+		}
+	}
+
+	private void add(Entry entry) {
+
+		boolean category = "category".equals(entry.type);
+
+		//참조 수는 키마다 따로 세므로 키마다 새 객체로 넣음
+		for (String key : keys(entry)) {
+			(category ? categoriesByText : byText).merge(key, entry.copy(), (old, e) -> old.retain());
+		}
+		for (String key : choseongKeys(entry)) {
+			(category ? categoriesByChoseong : byChoseong).merge(key, entry.copy(), (old, e) -> old.retain());
+		}
+	}
+
+	private void remove(Entry entry) {
+
+		for (String key : keys(entry)) {
+			byText.computeIfPresent(key, (k, old) -> old.release());
+		}
+		for (String key : choseongKeys(entry)) {
+			byChoseong.computeIfPresent(key, (k, old) -> old.release());
+		}
+	}
+
+	//이름의 단어 시작 위치마다 키 생성("삼성 노트북" -> "삼성 노트북", "노트북")
+	//같은 이름의 카테고리와 상품은 따로 보여주기 위해 종류도 키에 포함
+	private static List<String> keys(Entry entry) {
+
+		String name = ProductSearchIndex.normalize(entry.label);
+		List<String> keys = new ArrayList<>();
+
+		for (int i = 0; i < name.length(); i++) {
+			if (i == 0 || (name.charAt(i - 1) == ' ' && name.charAt(i) != ' ')) {
+				keys.add(name.substring(i) + SEPARATOR + entry.type + SEPARATOR + name);
+			}
+		}
+
+		return keys;
+	}
+
+	private static List<String> choseongKeys(Entry entry) {
+
+		List<String> keys = new ArrayList<>();
+
+		for (String key : keys(entry)) {
+			int separator = key.indexOf(SEPARATOR);
+			keys.add(toChoseong(key.substring(0, separator)) + key.substring(separator));
+		}
+
+		return keys;
+	}
+
+	private static class Entry {
+
+		private final String label;
+		private final String keyword;
+		private final String type;
+
+		// 같은 이름의 상품 수(0이 되면 맵에서 삭제)
+		private int refs = 1;
+
+		private Entry(String label, String keyword, String type) {
+			this.label = label;
+			this.keyword = keyword;
+			this.type = type;
+		}
+
+		private Entry copy() {
+			return new Entry(label, keyword, type);
+		}
+
+		private Entry retain() {
+			refs++;
+			return this;
+		}
+
+		//null을 반환하면 computeIfPresent가 키를 삭제
+		private Entry release() {
+			refs--;
+			return refs > 0 ? this : null;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof Entry && label.equals(((Entry) o).label) && type.equals(((Entry) o).type);
+		}
+
+		@Override
+		public int hashCode() {
+			return label.hashCode() * 31 + type.hashCode();
+		}
+	}
+
+}
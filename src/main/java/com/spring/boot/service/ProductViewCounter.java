@@ -0,0 +1,102 @@
+package com.spring.boot.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.spring.boot.dao.ProductRepository;
+import com.spring.boot.dto.ConversionRateDTO;
+
+import lombok.RequiredArgsConstructor;
+
+//상품 조회수
+//상세 화면을 볼 때마다 UPDATE 하면 인기 상품 행에 잠금이 몰리므로 메모리 카운터(LongAdder)에 더해두고
+//몇 초마다 상품별 증가분을 모아서 한번에 views = views + n 으로 반영
+@Component
+@RequiredArgsConstructor
+public class ProductViewCounter {
+
+	private final ProductRepository productRepository;
+	private final TransactionTemplate transactionTemplate;
+
+	// 상품번호 -> 아직 저장 안된 조회수(여러 스레드가 동시에 더해도 경합이 적음)
+	private final ConcurrentHashMap<Long, LongAdder> pending = new ConcurrentHashMap<>();
+
+	//상품 상세를 볼 때 호출
+	public void increment(Long productno) {
+		pending.computeIfAbsent(productno, k -> new LongAdder()).increment();
+	}
+
+	//아직 저장 안된 조회수
+	public long getPending(Long productno) {
+
+		LongAdder adder = pending.get(productno);
+
+		return adder == null ? 0 : adder.sum();
+	}
+
+	//모아둔 조회수를 DB에 반영
+	@Scheduled(fixedDelayString = "${product.views.flush-millis:5000}")
+	public synchronized void flush() {
+
+		Map<Long, Long> views = new HashMap<>();
+
+		for (Map.Entry<Long, LongAdder> entry : pending.entrySet()) {
+			//카운터는 지우지 않고 0으로만 돌림(지우면 그 사이 더해진 값이 사라질 수 있음)
+			long count = entry.getValue().sumThenReset();
+
+			if (count > 0) {
+				views.put(entry.getKey(), count);
+			}
+		}
+
+		if (views.isEmpty()) {
+			return;
+		}
+
+		try {
+			transactionTemplate.execute(status -> {
+				productRepository.addViews(views);
+				return null;
+			});
+		} catch (RuntimeException e) {
+			//저장 실패시 다음 저장때 다시 시도
+			System.out.println("조회수 저장 실패: " + e.getMessage());
+
+			views.forEach((productno, count) -> pending.computeIfAbsent(productno, k -> new LongAdder()).add(count));
+		}
+	}
+
+	//서버 종료시 남은 것 저장
+	@PreDestroy
+	public void onShutdown() {
+		flush();
+	}
+
+	//조회수 상위 size개 상품의 조회 대비 구매 전환율
+	public List<ConversionRateDTO> getConversionReport(int size) {
+
+		List<ConversionRateDTO> report = new ArrayList<>();
+
+		for (Object[] row : productRepository.findViewsAndSales(size)) {
+			Long productno = ((Number) row[0]).longValue();
+			long views = ((Number) row[2]).longValue() + getPending(productno);
+			long orderCount = ((Number) row[3]).longValue();
+
+			report.add(new ConversionRateDTO(productno, (String) row[1], views, orderCount,
+					((Number) row[4]).longValue(), views == 0 ? 0.0 : (double) orderCount / views));
+		}
+
+		return report;
+	}
+
+}
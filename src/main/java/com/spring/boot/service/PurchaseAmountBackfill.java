@@ -0,0 +1,53 @@
+package com.spring.boot.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.spring.boot.dao.UserRepository;
+
+import lombok.RequiredArgsConstructor;
+
+//기존 사용자 누적 구매금액(site_user.purchase_amount) 채우기
+//처음 배포시 한번만 필요(이미 채운 사용자는 건너뛰므로 다시 실행돼도 괜찮음)
+//주문내역이 많을 수 있으므로 id 구간별로 나눠서 트랜잭션을 짧게 유지
+//채우기 전에 주문한 사용자는 주문 저장때 주문내역 합계로 채워짐(UserRepository.addPurchaseAmount)
+@Component
+@RequiredArgsConstructor
+public class PurchaseAmountBackfill {
+
+	//한 트랜잭션에서 처리할 사용자 id 구간 크기
+	@Value("${user.purchase-amount.backfill-chunk:1000}")
+	private long chunkSize;
+
+	private final UserRepository userRepository;
+	private final TransactionTemplate transactionTemplate;
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void backfill() {
+
+		if (!userRepository.existsByPurchaseAmountIsNull()) {
+			return;
+		}
+
+		Long maxId = userRepository.findMaxId();
+		int updated = 0;
+
+		for (long fromId = 1; maxId != null && fromId <= maxId; fromId += chunkSize) {
+			long from = fromId;
+			long to = fromId + chunkSize - 1;
+
+			try {
+				updated += transactionTemplate.execute(status -> userRepository.backfillPurchaseAmount(from, to));
+			} catch (RuntimeException e) {
+				//실패한 구간은 다음 서버 시작때 다시 시도(그 전에 주문하면 주문 저장때 채워짐)
+				System.out.println("누적 구매금액 채우기 실패(" + from + "~" + to + "): " + e.getMessage());
+			}
+		}
+
+		System.out.println("누적 구매금액 채움: " + updated + "명");
+	}
+
+}
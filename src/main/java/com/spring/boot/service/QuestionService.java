@@ -23,6 +23,7 @@ import lombok.RequiredArgsConstructor;
 public class QuestionService {
 	
 	private final QuestionRepository questionRepository;
+	private final ProductDetailCache productDetailCache;
 	
 	//product 상품의 전체 질문글 조회
 	public Page<Question> getQuestionList(Pageable pageable,Product product){
@@ -65,6 +66,7 @@ public class QuestionService {
 		question.setProduct(product);
 		
 		questionRepository.save(question);
+		productDetailCache.evict(product.getId());//상세 화면 캐시 삭제
 		
 	}
 	//답변작성시 question 답변작성완료로 바뀌게되는것 추가
@@ -74,6 +76,7 @@ public class QuestionService {
 		question.setDone(true);
 		
 		questionRepository.save(question);
+		productDetailCache.evict(question.getProduct().getId());//상세 화면 캐시 삭제
 	}
 	
 	
@@ -81,6 +84,7 @@ public class QuestionService {
 	
 	public void deleteQuestion(Question question) {
 		questionRepository.delete(question);
+		productDetailCache.evict(question.getProduct().getId());//상세 화면 캐시 삭제
 	}
 	
 	
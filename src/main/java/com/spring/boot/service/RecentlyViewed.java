@@ -0,0 +1,290 @@
+package com.spring.boot.service;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.spring.boot.dao.RecentViewRepository;
+import com.spring.boot.model.RecentView;
+
+import lombok.RequiredArgsConstructor;
+
+//사용자별 최근 본 상품(메모리)
+//사용자마다 상품번호 long 배열 하나(최근 본 순서, 최대 perUser개)만 유지하고 전체 사용자 수도 maxUsers로 제한
+//상세 화면을 볼 때마다 DB에 쓰지 않고, 바뀐 사용자만 모아서 주기적으로 recent_view 에 저장
+//메모리에 없는 사용자는 처음 조회할 때 DB에서 읽고, 오래 접근하지 않은 사용자는 저장 후 메모리에서 제거
+@Component
+@RequiredArgsConstructor
+public class RecentlyViewed {
+
+	//사용자마다 남길 최근 본 상품 수
+	@Value("${recent.per-user:20}")
+	private int perUser;
+
+	//메모리에 둘 최대 사용자 수(넘으면 가장 오래 접근하지 않은 사용자부터 제거)
+	@Value("${recent.max-users:50000}")
+	private int maxUsers;
+
+	//이 시간 동안 접근하지 않은 사용자는 메모리에서 제거
+	@Value("${recent.idle-minutes:30}")
+	private long idleMinutes;
+
+	private final RecentViewRepository recentViewRepository;
+	private final TransactionTemplate transactionTemplate;
+
+	// 사용자 id -> 최근 본 상품(접근 순서 LRU)
+	private final Map<Long, Entry> entries = new LinkedHashMap<Long, Entry>(16, 0.75f, true) {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+
+			if (size() <= maxUsers) {
+				return false;
+			}
+
+			//아직 저장 안된 사용자(저장 중인 사용자 포함)는 저장이 커밋될 때까지 evicted에 남김
+			if (eldest.getValue().dirty || eldest.getValue().flushing) {
+				evicted.put(eldest.getKey(), eldest.getValue());
+			}
+			return true;
+		}
+	};
+
+	// 저장하기 전에 메모리에서 밀려난 사용자
+	private final Map<Long, Entry> evicted = new LinkedHashMap<>();
+
+	//상품 상세를 볼 때 호출
+	public void record(Long userId, long productno) {
+
+		Entry entry = load(userId);
+
+		synchronized (entry) {
+			entry.push(productno, perUser);
+		}
+	}
+
+	//최근 본 상품번호(최근 순) 최대 limit개
+	public List<Long> get(Long userId, int limit) {
+
+		Entry entry = load(userId);
+		List<Long> result = new ArrayList<>();
+
+		synchronized (entry) {
+			for (int i = 0; i < entry.size && i < limit; i++) {
+				result.add(entry.ids[i]);
+			}
+		}
+
+		return result;
+	}
+
+	//바뀐 사용자만 모아서 저장하고, 오래 접근하지 않은 사용자는 메모리에서 제거
+	//저장할 것이 있는 사용자는 저장이 커밋될 때까지 evicted에 남겨둠(그 사이 접근하면 DB의 예전 값 대신 이 값을 사용)
+	@Scheduled(fixedDelayString = "${recent.flush-millis:30000}")
+	public void flush() {
+
+		Map<Long, byte[]> pending = new LinkedHashMap<>();
+		Map<Long, Entry> flushed = new LinkedHashMap<>();
+		long idleBefore = System.currentTimeMillis() - idleMinutes * 60 * 1000;
+
+		synchronized (entries) {
+			for (Map.Entry<Long, Entry> e : evicted.entrySet()) {
+				collect(pending, flushed, e.getKey(), e.getValue());
+			}
+
+			Iterator<Map.Entry<Long, Entry>> iterator = entries.entrySet().iterator();
+
+			while (iterator.hasNext()) {
+				Map.Entry<Long, Entry> e = iterator.next();
+				collect(pending, flushed, e.getKey(), e.getValue());
+
+				if (e.getValue().lastAccess < idleBefore) {
+					iterator.remove();
+
+					if (flushed.containsKey(e.getKey())) {
+						evicted.put(e.getKey(), e.getValue());
+					}
+				}
+			}
+		}
+
+		if (pending.isEmpty()) {
+			return;
+		}
+
+		LocalDateTime now = LocalDateTime.now();
+
+		try {
+			transactionTemplate.execute(status -> {
+				for (Map.Entry<Long, byte[]> e : pending.entrySet()) {
+					recentViewRepository.upsert(e.getKey(), e.getValue(), now);
+				}
+				return null;
+			});
+		} catch (RuntimeException e) {
+			//저장 실패시 다음 저장때 다시 시도(밀려난 사용자도 evicted에 남아 있음)
+			System.out.println("최근 본 상품 저장 실패: " + e.getMessage());
+
+			synchronized (entries) {
+				for (Entry entry : flushed.values()) {
+					synchronized (entry) {
+						entry.dirty = true;
+						entry.flushing = false;
+					}
+				}
+			}
+			return;
+		}
+
+		//저장된 사용자는 evicted에서 제거(그 사이 다시 접근해서 메모리로 돌아갔으면 이미 없음)
+		synchronized (entries) {
+			for (Map.Entry<Long, Entry> e : flushed.entrySet()) {
+				e.getValue().flushing = false;
+
+				if (!e.getValue().dirty) {
+					evicted.remove(e.getKey(), e.getValue());
+				}
+			}
+		}
+	}
+
+	//서버 종료시 남은 것 저장
+	@PreDestroy
+	public void onShutdown() {
+		flush();
+	}
+
+	private void collect(Map<Long, byte[]> pending, Map<Long, Entry> flushed, Long userId, Entry entry) {
+
+		synchronized (entry) {
+			if (entry.dirty) {
+				pending.put(userId, encode(entry.ids, entry.size));
+				flushed.put(userId, entry);
+				entry.dirty = false;
+				entry.flushing = true;
+			}
+		}
+	}
+
+	//메모리에 없으면 DB에서 읽어서 추가
+	private Entry load(Long userId) {
+
+		Entry entry;
+
+		synchronized (entries) {
+			entry = entries.get(userId);
+
+			if (entry == null) {
+				//저장 전에 밀려난 사용자는 DB보다 최신이므로 그대로 다시 사용
+				entry = evicted.remove(userId);
+
+				if (entry != null) {
+					entries.put(userId, entry);
+				}
+			}
+		}
+
+		if (entry == null) {
+			long[] ids = recentViewRepository.findById(userId)
+					.map(RecentView::getProductIds)
+					.map(RecentlyViewed::decode)
+					.orElse(new long[0]);
+
+			Entry loaded = new Entry(ids, perUser);
+
+			synchronized (entries) {
+				//조회하는 동안 다른 요청이 넣었으면 그 값을 사용
+				entry = entries.get(userId);
+
+				if (entry == null) {
+					entry = loaded;
+					entries.put(userId, entry);
+				}
+			}
+		}
+
+		entry.lastAccess = System.currentTimeMillis();
+
+		return entry;
+	}
+
+	private static byte[] encode(long[] ids, int size) {
+
+		ByteBuffer buffer = ByteBuffer.allocate(size * Long.BYTES);
+
+		for (int i = 0; i < size; i++) {
+			buffer.putLong(ids[i]);
+		}
+
+		return buffer.array();
+	}
+
+	private static long[] decode(byte[] bytes) {
+
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		long[] ids = new long[bytes.length / Long.BYTES];
+
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = buffer.getLong();
+		}
+
+		return ids;
+	}
+
+	//한 사용자의 최근 본 상품(ids[0]이 가장 최근)
+	private static final class Entry {
+
+		private final long[] ids;
+		private int size;
+		private boolean dirty;
+		//저장 트랜잭션이 끝나지 않음(밀려나도 evicted에 남겨야 함)
+		private boolean flushing;
+		private volatile long lastAccess;
+
+		private Entry(long[] loaded, int capacity) {
+
+			ids = new long[capacity];
+			size = Math.min(loaded.length, capacity);
+			System.arraycopy(loaded, 0, ids, 0, size);
+		}
+
+		//맨 앞에 추가(이미 있으면 앞으로 이동, 넘치면 가장 오래된 것 삭제)
+		private void push(long productno, int capacity) {
+
+			int index = 0;
+
+			while (index < size && ids[index] != productno) {
+				index++;
+			}
+
+			if (index == 0 && size > 0) {
+				return;
+			}
+
+			if (index == size) {
+				if (size < capacity) {
+					size++;
+				}
+				index = size - 1;
+			}
+
+			System.arraycopy(ids, 0, ids, 1, index);
+			ids[0] = productno;
+			dirty = true;
+		}
+	}
+
+}
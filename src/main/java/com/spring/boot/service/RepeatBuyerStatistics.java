@@ -0,0 +1,244 @@
+package com.spring.boot.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.spring.boot.dao.ProductBuyerRepository;
+import com.spring.boot.dto.RepeatBuyerStatsDTO;
+import com.spring.boot.util.TransactionUtil;
+
+import lombok.RequiredArgsConstructor;
+
+//상품별 재구매 통계(메모리)
+//상품마다 "n번 구매한 구매자 수" 분포를 유지 -> 기준 횟수가 바뀌어도 주문내역을 다시 읽지 않고 계산
+//DB(product_buyer)에는 구매자별 횟수를 저장하고, 서버 시작시 분포만 읽어옴
+@Component
+@RequiredArgsConstructor
+public class RepeatBuyerStatistics {
+
+	//분포는 이 횟수까지만 구분(그 이상은 마지막 칸에 모음)
+	private static final int MAX_COUNT = 10;
+
+	//재구매로 보는 최소 구매 횟수(1 ~ MAX_COUNT), 관리자 화면에서 바로 변경 가능
+	@Value("${best.repeat-buyer.min-purchases:3}")
+	private volatile int minPurchases;
+
+	private final ProductBuyerRepository productBuyerRepository;
+	private final TransactionTemplate transactionTemplate;
+
+	// 상품번호 -> [구매 횟수] = 구매자 수 (0번 칸은 사용 안함)
+	private final Map<Long, int[]> histograms = new HashMap<>();
+
+	// rebuild 중에 커밋된 구매(상품번호, 사용자id, 구매 횟수), rebuild 중이 아니면 null
+	// 서버 시작 중에도 주문을 받으므로 분포를 읽는 동안 반영된 것을 모아뒀다가 읽은 분포에 빠진 것만 다시 반영
+	private List<long[]> pending;
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void rebuild() {
+
+		//처음 배포시에는 기존 주문내역으로 집계 테이블을 채움
+		transactionTemplate.execute(status -> {
+			if (productBuyerRepository.count() == 0) {
+				productBuyerRepository.backfillFromOrderList();
+			}
+			return null;
+		});
+
+		synchronized (this) {
+			pending = new ArrayList<>();
+		}
+
+		//분포와 모아둔 구매의 횟수를 같은 트랜잭션(같은 스냅샷)에서 읽어서 분포에 이미 들어간 구매인지 판단
+		transactionTemplate.execute(status -> {
+			List<Object[]> rows = productBuyerRepository.findPurchaseHistogram(MAX_COUNT);
+
+			synchronized (this) {
+				histograms.clear();
+
+				for (Object[] row : rows) {
+					long productno = ((Number) row[0]).longValue();
+					int count = ((Number) row[1]).intValue();
+					int buyers = ((Number) row[2]).intValue();
+
+					histograms.computeIfAbsent(productno, k -> new int[MAX_COUNT + 1])[count] += buyers;
+				}
+
+				Map<String, Integer> snapshotCounts = findSnapshotCounts(pending);
+
+				//스냅샷의 횟수보다 큰 횟수로 바뀐 구매만 반영(그 이하는 읽은 분포에 이미 포함)
+				for (long[] purchase : pending) {
+					int snapshotCount = snapshotCounts.getOrDefault(purchase[0] + ":" + purchase[1], 0);
+
+					if (purchase[2] > snapshotCount) {
+						applyTransition(purchase[0], (int) purchase[2]);
+					}
+				}
+				pending = null;
+			}
+			return null;
+		});
+	}
+
+	private Map<String, Integer> findSnapshotCounts(List<long[]> purchases) {
+
+		Map<String, Integer> counts = new HashMap<>();
+
+		if (purchases.isEmpty()) {
+			return counts;
+		}
+
+		Set<Long> productnos = new HashSet<>();
+		Set<Long> userIds = new HashSet<>();
+
+		for (long[] purchase : purchases) {
+			productnos.add(purchase[0]);
+			userIds.add(purchase[1]);
+		}
+
+		for (Object[] row : productBuyerRepository.findPurchaseCounts(productnos, userIds)) {
+			counts.put(((Number) row[0]).longValue() + ":" + ((Number) row[1]).longValue(), ((Number) row[2]).intValue());
+		}
+
+		return counts;
+	}
+
+	//주문 저장 트랜잭션 안에서 호출 -> DB는 바로, 메모리 분포는 커밋된 뒤에 반영
+	//같은 상품이 여러 줄이면 한 줄씩 늘어난 횟수를 차례로 반영
+	public void recordPurchases(List<Long> productnos, Long userId) {
+
+		productBuyerRepository.addPurchases(productnos, userId);
+
+		Map<Long, Integer> lines = new LinkedHashMap<>();
+
+		for (Long productno : productnos) {
+			lines.merge(productno, 1, Integer::sum);
+		}
+
+		Map<Long, Integer> counts = new HashMap<>();
+
+		for (Object[] row : productBuyerRepository.findPurchaseCounts(lines.keySet(),
+				Collections.singleton(userId))) {
+			counts.put(((Number) row[0]).longValue(), ((Number) row[2]).intValue());
+		}
+
+		TransactionUtil.afterCommit(() -> {
+			for (Map.Entry<Long, Integer> line : lines.entrySet()) {
+				int count = counts.getOrDefault(line.getKey(), line.getValue());
+
+				for (int i = line.getValue() - 1; i >= 0; i--) {
+					apply(line.getKey(), userId, count - i);
+				}
+			}
+		});
+	}
+
+	//재구매 통계
+	public synchronized RepeatBuyerStatsDTO getStats(Long productno) {
+
+		int[] histogram = histograms.get(productno);
+
+		if (histogram == null) {
+			return new RepeatBuyerStatsDTO(0, 0, 0.0);
+		}
+
+		int buyers = 0;
+		int repeatBuyers = 0;
+		int threshold = getThreshold();
+
+		for (int count = 1; count <= MAX_COUNT; count++) {
+			buyers += histogram[count];
+
+			if (count >= threshold) {
+				repeatBuyers += histogram[count];
+			}
+		}
+
+		return new RepeatBuyerStatsDTO(buyers, repeatBuyers, buyers == 0 ? 0.0 : (double) repeatBuyers / buyers);
+	}
+
+	//여러 상품의 재구매 통계
+	public Map<Long, RepeatBuyerStatsDTO> getStats(List<Long> productnos) {
+
+		Map<Long, RepeatBuyerStatsDTO> stats = new HashMap<>();
+
+		for (Long productno : productnos) {
+			stats.put(productno, getStats(productno));
+		}
+
+		return stats;
+	}
+
+	//기준 횟수 이상 구매한 구매자가 있는 상품만(순서 유지)
+	public synchronized List<Long> filterRepurchased(List<Long> productnos) {
+
+		List<Long> result = new ArrayList<>();
+		int threshold = getThreshold();
+
+		for (Long productno : productnos) {
+			int[] histogram = histograms.get(productno);
+
+			if (histogram == null) {
+				continue;
+			}
+
+			for (int count = threshold; count <= MAX_COUNT; count++) {
+				if (histogram[count] > 0) {
+					result.add(productno);
+					break;
+				}
+			}
+		}
+
+		return result;
+	}
+
+	//구매자의 구매 횟수가 count-1 -> count 로 바뀐 것을 반영(rebuild 중이면 모아둠)
+	private synchronized void apply(Long productno, Long userId, int count) {
+
+		if (pending != null) {
+			pending.add(new long[] { productno, userId, count });
+			return;
+		}
+
+		applyTransition(productno, count);
+	}
+
+	private void applyTransition(Long productno, int count) {
+
+		int[] histogram = histograms.computeIfAbsent(productno, k -> new int[MAX_COUNT + 1]);
+
+		if (count > MAX_COUNT) {
+			return;
+		}
+
+		if (count > 1) {
+			histogram[count - 1]--;
+		}
+		histogram[count]++;
+	}
+
+	public int getThreshold() {
+		return Math.max(1, Math.min(minPurchases, MAX_COUNT));
+	}
+
+	//기준 횟수 변경(분포를 그대로 쓰므로 다시 집계할 필요 없음)
+	public int setThreshold(int minPurchases) {
+
+		this.minPurchases = minPurchases;
+
+		return getThreshold();
+	}
+
+}
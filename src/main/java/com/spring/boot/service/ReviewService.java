@@ -36,6 +36,7 @@ public class ReviewService {
 
 
 	private final ReviewRepository reviewRepository;
+	private final ProductDetailCache productDetailCache;
 
 	//전체리뷰조회
 	public Page<Review> getTotalReview(Pageable pageable){
@@ -143,6 +144,7 @@ public class ReviewService {
 
 		//db에 저장하는부분
 		reviewRepository.save(reviews);//insert
+		productDetailCache.evict(product.getId());//상세 화면 캐시 삭제
 
 		//return reviews;//엄 return 헤야하나말아야하나
 	}
@@ -250,6 +252,7 @@ public class ReviewService {
 
 		//db에 저장하는부분
 		reviewRepository.save(review);//insert
+		productDetailCache.evict(review.getProduct().getId());//상세 화면 캐시 삭제
 
 
 
@@ -259,6 +262,7 @@ public class ReviewService {
 	//리뷰삭제
 	public void deleteReview(Review review) {
 		reviewRepository.delete(review);
+		productDetailCache.evict(review.getProduct().getId());//상세 화면 캐시 삭제
 	}
 
 	//리뷰추천수 저장
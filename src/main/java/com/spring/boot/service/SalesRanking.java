@@ -0,0 +1,277 @@
+package com.spring.boot.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.spring.boot.dao.ProductRepository;
+import com.spring.boot.dao.ProductSalesRepository;
+import com.spring.boot.dto.ItemDataForm;
+import com.spring.boot.model.ProductSales;
+import com.spring.boot.util.TransactionUtil;
+
+import lombok.RequiredArgsConstructor;
+
+//판매량 순위(메모리)
+//서버 시작시 product_sales 테이블로 만들고, 이후에는 주문이 커밋될 때마다 해당 상품만 갱신
+//베스트 상품 조회는 정렬된 집합 앞에서 n개만 읽음(GROUP BY 없음)
+//카테고리별로는 주문 건수 상위 K개만 유지(카테고리 상품 목록을 조회하지 않고 바로 응답)
+@Component
+@RequiredArgsConstructor
+public class SalesRanking {
+
+	// 판매 수량 내림차순, 같으면 상품번호 오름차순
+	private static final Comparator<Sales> ORDER = Comparator.comparingLong((Sales s) -> s.quantity).reversed()
+			.thenComparingLong(s -> s.productno);
+
+	// 카테고리 순위: 주문 건수 내림차순(기존 COUNT(o) 기준 유지), 같으면 상품번호 오름차순
+	private static final Comparator<Sales> CATEGORY_ORDER = Comparator
+			.comparingLong((Sales s) -> s.orderCount).reversed().thenComparingLong(s -> s.productno);
+
+	@Value("${sales.ranking.category-top-k:20}")
+	private int categoryTopK;
+
+	private final ProductSalesRepository productSalesRepository;
+	private final ProductRepository productRepository;
+	private final TransactionTemplate transactionTemplate;
+
+	// 상품번호 -> 판매 집계
+	private final Map<Long, Sales> salesByProduct = new HashMap<>();
+
+	// 판매량 순으로 정렬된 집계
+	private final TreeSet<Sales> ranking = new TreeSet<>(ORDER);
+
+	// 상품번호 -> 카테고리
+	private final Map<Long, String> categoryByProduct = new HashMap<>();
+
+	// 카테고리 -> 주문 건수 상위 K개(ProductSpecification의 카테고리만)
+	private final Map<String, TreeSet<Sales>> topByCategory = new HashMap<>();
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void rebuild() {
+
+		//처음 배포시에는 기존 주문내역으로 집계 테이블을 채움
+		transactionTemplate.execute(status -> {
+			if (productSalesRepository.count() == 0) {
+				productSalesRepository.backfillFromOrderList();
+			}
+			return null;
+		});
+
+		List<ProductSales> rows = productSalesRepository.findAll();
+		List<Object[]> categories = productRepository.findCategories();
+
+		synchronized (this) {
+			salesByProduct.clear();
+			ranking.clear();
+			categoryByProduct.clear();
+			topByCategory.clear();
+
+			for (ProductSales row : rows) {
+				Sales sales = new Sales(row.getProductno(), row.getQuantity(), row.getOrderCount());
+				salesByProduct.put(sales.productno, sales);
+				ranking.add(sales);
+			}
+
+			for (String category : ProductSpecification.getCategories()) {
+				topByCategory.put(category, new TreeSet<>(CATEGORY_ORDER));
+			}
+
+			for (Object[] row : categories) {
+				if (row[1] != null) {
+					categoryByProduct.put((Long) row[0], (String) row[1]);
+				}
+			}
+
+			for (Sales sales : salesByProduct.values()) {
+				offer(sales);
+			}
+		}
+	}
+
+	//상품 등록/수정시 호출(카테고리가 바뀌면 두 카테고리 순위를 다시 계산)
+	public synchronized void updateCategory(Long productno, String category) {
+
+		if (productno == null) {
+			return;
+		}
+
+		String before = category == null ? categoryByProduct.remove(productno)
+				: categoryByProduct.put(productno, category);
+
+		if (before == null ? category == null : before.equals(category)) {
+			return;
+		}
+
+		if (before != null) {
+			refill(before);
+		}
+
+		Sales sales = salesByProduct.get(productno);
+
+		if (sales != null) {
+			offer(sales);
+		}
+	}
+
+	//카테고리 판매량 상위 상품번호(최대 K개)
+	public synchronized List<Long> getTopNByCategory(String category, int size) {
+
+		List<Long> result = new ArrayList<>(size);
+		TreeSet<Sales> top = category == null ? null : topByCategory.get(category);
+
+		if (top == null) {
+			return result;
+		}
+
+		for (Sales sales : top) {
+			if (result.size() >= size) {
+				break;
+			}
+			result.add(sales.productno);
+		}
+
+		return result;
+	}
+
+	//카테고리 판매 순위 후보(상품번호, 주문 건수), 주문 건수 내림차순
+	public synchronized List<long[]> getCategoryCandidates(String category, int size) {
+
+		List<long[]> result = new ArrayList<>(size);
+		TreeSet<Sales> top = category == null ? null : topByCategory.get(category);
+
+		if (top == null) {
+			return result;
+		}
+
+		for (Sales sales : top) {
+			if (result.size() >= size) {
+				break;
+			}
+			result.add(new long[] { sales.productno, sales.orderCount });
+		}
+
+		return result;
+	}
+
+	//주문 저장 트랜잭션 안에서 호출 -> DB 집계는 바로, 메모리 순위는 커밋된 뒤에 반영
+	public void recordSales(List<ItemDataForm> items) {
+
+		productSalesRepository.addSales(items);
+
+		TransactionUtil.afterCommit(() -> {
+			for (ItemDataForm item : items) {
+				apply(item.getId(), item.getCount());
+			}
+		});
+	}
+
+	//판매량 상위 상품번호(offset부터 size개)
+	public synchronized List<Long> getTopN(long offset, int size) {
+
+		List<Long> result = new ArrayList<>(size);
+		Iterator<Sales> iterator = ranking.iterator();
+
+		for (long i = 0; i < offset && iterator.hasNext(); i++) {
+			iterator.next();
+		}
+
+		while (result.size() < size && iterator.hasNext()) {
+			result.add(iterator.next().productno);
+		}
+
+		return result;
+	}
+
+	private synchronized void apply(Long productno, int count) {
+
+		Sales before = salesByProduct.get(productno);
+		Sales after = before == null ? new Sales(productno, count, 1)
+				: new Sales(productno, before.quantity + count, before.orderCount + 1);
+
+		//정렬 기준값이 바뀌므로 빼고 다시 넣음
+		if (before != null) {
+			ranking.remove(before);
+		}
+
+		salesByProduct.put(productno, after);
+		ranking.add(after);
+
+		//판매량은 줄지 않으므로 순위 밖 상품은 자기 판매가 늘 때만 들어올 수 있음
+		TreeSet<Sales> top = topOf(productno);
+
+		if (top != null) {
+			if (before != null) {
+				top.remove(before);
+			}
+			offer(after);
+		}
+	}
+
+	private TreeSet<Sales> topOf(Long productno) {
+
+		String category = categoryByProduct.get(productno);
+
+		return category == null ? null : topByCategory.get(category);
+	}
+
+	//K개가 안되거나 K번째보다 많이 팔렸으면 추가하고 K개를 넘는 만큼 삭제
+	private void offer(Sales sales) {
+
+		TreeSet<Sales> top = topOf(sales.productno);
+
+		if (top == null) {
+			return;
+		}
+
+		if (top.size() < categoryTopK || CATEGORY_ORDER.compare(sales, top.last()) < 0) {
+			top.add(sales);
+
+			while (top.size() > categoryTopK) {
+				top.pollLast();
+			}
+		}
+	}
+
+	//상품이 다른 카테고리로 옮겨간 경우, 빈 자리는 전체 집계에서 다시 채움
+	private void refill(String category) {
+
+		TreeSet<Sales> top = topByCategory.get(category);
+
+		if (top == null) {
+			return;
+		}
+
+		top.clear();
+
+		for (Sales sales : salesByProduct.values()) {
+			if (category.equals(categoryByProduct.get(sales.productno))) {
+				offer(sales);
+			}
+		}
+	}
+
+	private static class Sales {
+
+		private final long productno;
+		private final long quantity;
+		private final long orderCount;
+
+		private Sales(long productno, long quantity, long orderCount) {
+			this.productno = productno;
+			this.quantity = quantity;
+			this.orderCount = orderCount;
+		}
+	}
+
+}
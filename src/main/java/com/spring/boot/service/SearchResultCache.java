@@ -0,0 +1,176 @@
+package com.spring.boot.service;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.spring.boot.dto.PageRequestDTO;
+import com.spring.boot.util.TransactionUtil;
+
+import lombok.Getter;
+
+//검색 결과(상품 id 목록) 캐시
+//키: 정규화된 검색어 + 정렬 + 페이지 + 사이즈(+ 커서)
+//상품이 등록/수정되면 그 상품의 카테고리나 상품명과 맞는 검색어의 결과만 삭제
+@Component
+public class SearchResultCache {
+
+	@Value("${search.cache.max-entries:1000}")
+	private int maxEntries;
+
+	// 접근 순서 LinkedHashMap(LRU), 최대 개수를 넘으면 가장 오래 안쓴 결과부터 삭제
+	private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+
+			if (size() > maxEntries) {
+				evictions.incrementAndGet();
+				return true;
+			}
+			return false;
+		}
+	};
+
+	// 삭제가 일어날 때마다 증가
+	// 조회 시작 후 삭제가 있었다면 그 결과는 캐시에 넣지 않음(오래된 결과 저장 방지)
+	private final AtomicLong generation = new AtomicLong();
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+	private final AtomicLong invalidations = new AtomicLong();
+
+	public static String key(PageRequestDTO requestDTO, String sort) {
+
+		String category = ProductSpecification.resolveCategory(requestDTO.getKeyword());
+		String keyword = category != null ? "c:" + category
+				: "k:" + ProductSearchIndex.normalize(requestDTO.getKeyword());
+
+		return keyword + "|" + (sort == null || sort.isEmpty() ? "newest" : sort)
+				+ "|" + requestDTO.getPage() + "|" + requestDTO.getSize()
+				+ "|" + requestDTO.getCursor() + "|" + requestDTO.isWithCount();
+	}
+
+	public Entry get(String key) {
+
+		Entry entry;
+
+		synchronized (entries) {
+			entry = entries.get(key);
+		}
+
+		if (entry != null) {
+			hits.incrementAndGet();
+		} else {
+			misses.incrementAndGet();
+		}
+
+		return entry;
+	}
+
+	public long getGeneration() {
+		return generation.get();
+	}
+
+	//조회 시작 시점의 generation을 같이 받아서 그 사이 삭제가 없었을 때만 저장
+	public void put(String key, String keyword, List<Long> ids, Long total, long startGeneration) {
+
+		String category = ProductSpecification.resolveCategory(keyword);
+
+		Entry entry = new Entry(category, category == null ? ProductSearchIndex.normalize(keyword) : null,
+				Collections.unmodifiableList(ids), total);
+
+		synchronized (entries) {
+			if (generation.get() == startGeneration) {
+				entries.put(key, entry);
+			}
+		}
+	}
+
+	//상품의 카테고리/상품명/상품설명과 관련된 검색 결과 삭제
+	//수정 전 값과 수정 후 값으로 각각 호출
+	//상품 저장 트랜잭션 안이면 커밋된 뒤에 삭제(커밋 전에 시작한 검색이 예전 결과를 새 generation으로 저장하지 않도록)
+	public void invalidate(String pname, String content, String category) {
+		TransactionUtil.afterCommit(() -> remove(pname, content, category));
+	}
+
+	private void remove(String pname, String content, String category) {
+
+		String normalizedPname = ProductSearchIndex.normalize(pname);
+		String normalizedContent = ProductSearchIndex.normalize(content);
+		String normalizedCategory = ProductSearchIndex.normalize(category);
+
+		synchronized (entries) {
+			generation.incrementAndGet();
+
+			Iterator<Entry> iterator = entries.values().iterator();
+
+			while (iterator.hasNext()) {
+				Entry entry = iterator.next();
+
+				if (entry.matches(normalizedPname, normalizedContent, normalizedCategory)) {
+					iterator.remove();
+					invalidations.incrementAndGet();
+				}
+			}
+		}
+	}
+
+	//캐시 통계(관리자 페이지)
+	public Map<String, Object> getStats() {
+
+		Map<String, Object> stats = new LinkedHashMap<>();
+
+		long hitCount = hits.get();
+		long missCount = misses.get();
+
+		synchronized (entries) {
+			stats.put("size", entries.size());
+		}
+		stats.put("maxEntries", maxEntries);
+		stats.put("hits", hitCount);
+		stats.put("misses", missCount);
+		stats.put("hitRate", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+		stats.put("evictions", evictions.get());
+		stats.put("invalidations", invalidations.get());
+
+		return stats;
+	}
+
+	@Getter
+	public static class Entry {
+
+		private final String category;//카테고리 검색이면 카테고리명
+		private final String keyword;//일반 검색이면 정규화된 검색어
+		private final List<Long> ids;//화면에 나온 순서대로 상품 id
+		private final Long total;//전체 개수(count 쿼리를 안했으면 null)
+
+		private Entry(String category, String keyword, List<Long> ids, Long total) {
+			this.category = category;
+			this.keyword = keyword;
+			this.ids = ids;
+			this.total = total;
+		}
+
+		private boolean matches(String pname, String content, String productCategory) {
+
+			if (category != null) {
+				return category.equals(productCategory);
+			}
+
+			//검색어 없이 전체 조회한 결과는 항상 삭제
+			return keyword.isEmpty() || pname.contains(keyword) || content.contains(keyword)
+					|| productCategory.contains(keyword);
+		}
+	}
+
+}
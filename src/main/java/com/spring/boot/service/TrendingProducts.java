@@ -0,0 +1,315 @@
+package com.spring.boot.service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.spring.boot.dao.OrderListRepository;
+import com.spring.boot.util.TransactionUtil;
+
+import lombok.RequiredArgsConstructor;
+
+//최근 판매량 기준 인기 상품(트렌드)
+//1분 단위 판매 버킷을 1주일치 링 버퍼로 유지하고, 시간이 지나 창(1시간/1일/1주일) 밖으로 나간 버킷은 합계에서 뺌
+//전체 트렌드 점수는 반감기를 적용한 감쇠 점수(최근 판매일수록 가중치가 큼)
+//서버 시작시 최근 1주일 주문내역(orderDate)으로 다시 만들고, 이후에는 주문이 커밋될 때마다 반영
+@Component
+@RequiredArgsConstructor
+public class TrendingProducts {
+
+	public enum Window {
+
+		HOUR(60), DAY(24 * 60), WEEK(7 * 24 * 60);
+
+		private final int minutes;
+
+		Window(int minutes) {
+			this.minutes = minutes;
+		}
+	}
+
+	private static final int RING_MINUTES = Window.WEEK.minutes;
+
+	//감쇠 점수의 기준 시점을 옮기는 지수 한도(double 범위를 넘지 않도록)
+	private static final double MAX_EXPONENT = 50;
+
+	//점수가 이 값보다 작아지면 삭제
+	private static final double MIN_SCORE = 1e-6;
+
+	@Value("${trending.half-life-minutes:360}")
+	private double halfLifeMinutes;
+
+	private final OrderListRepository orderListRepository;
+
+	// 1분 단위 판매 버킷(분 % RING_MINUTES 위치), 상품번호 -> 판매 수량
+	@SuppressWarnings("unchecked")
+	private final Map<Long, Integer>[] buckets = new Map[RING_MINUTES];
+
+	// 각 버킷이 몇 분(epoch minute)의 데이터인지
+	private final long[] bucketMinutes = new long[RING_MINUTES];
+
+	// 창 -> (상품번호 -> 창 안의 판매 수량)
+	private final Map<Window, Map<Long, Long>> totals = new EnumMap<>(Window.class);
+
+	{
+		for (Window window : Window.values()) {
+			totals.put(window, new HashMap<>());
+		}
+	}
+
+	// 상품번호 -> 감쇠 점수(landmarkMinute 기준으로 저장, 순위 비교에는 그대로 사용)
+	private final Map<Long, Double> scores = new HashMap<>();
+
+	private long landmarkMinute;
+
+	// 마지막으로 반영한 분
+	private long currentMinute = -1;
+
+	// rebuild 중에 커밋된 판매(주문내역 id, 상품번호, 수량, 분), rebuild 중이 아니면 null
+	// 주문내역을 읽은 뒤 그 결과에 없는 주문만 다시 반영
+	private List<long[]> pending;
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void rebuild() {
+
+		synchronized (this) {
+			pending = new ArrayList<>();
+		}
+
+		long now = toMinute(System.currentTimeMillis());
+
+		List<Object[]> rows = orderListRepository.findSalesSince(LocalDateTime.now().minusMinutes(RING_MINUTES));
+
+		synchronized (this) {
+			for (int i = 0; i < RING_MINUTES; i++) {
+				buckets[i] = null;
+				bucketMinutes[i] = -1;
+			}
+			for (Map<Long, Long> total : totals.values()) {
+				total.clear();
+			}
+			scores.clear();
+
+			currentMinute = now - RING_MINUTES;
+			landmarkMinute = currentMinute;
+
+			Set<Long> loadedIds = new HashSet<>();
+
+			//주문 시간 순서대로 다시 쌓음
+			for (Object[] row : rows) {
+				long minute = toMinute(((LocalDateTime) row[1]).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+
+				add((Long) row[0], ((Number) row[2]).intValue(), minute);
+				loadedIds.add((Long) row[3]);
+			}
+
+			advance(now);
+
+			//읽는 동안 커밋된 판매 중 읽은 결과에 없는 것만 반영
+			for (long[] sale : pending) {
+				if (!loadedIds.contains(sale[0])) {
+					add(sale[1], (int) sale[2], sale[3]);
+				}
+			}
+			pending = null;
+		}
+	}
+
+	//주문 저장 트랜잭션 안에서 호출 -> 커밋된 뒤에 반영
+	//rebuild 시작 전에 커밋된 주문은 rebuild가 주문내역에서 읽으므로 무시, rebuild 중이면 모아둠
+	public void recordSale(Long orderId, Long productno, int count) {
+
+		TransactionUtil.afterCommit(() -> {
+			synchronized (this) {
+				long minute = toMinute(System.currentTimeMillis());
+
+				if (pending != null) {
+					pending.add(new long[] { orderId, productno, count, minute });
+				} else if (currentMinute >= 0) {
+					add(productno, count, minute);
+				}
+			}
+		});
+	}
+
+	//주문이 없어도 1분마다 창 밖으로 나간 버킷을 정리
+	@Scheduled(fixedRate = 60 * 1000)
+	public synchronized void tick() {
+
+		if (currentMinute >= 0) {
+			advance(toMinute(System.currentTimeMillis()));
+		}
+	}
+
+	//창 안의 판매 수량 상위 상품번호
+	public synchronized List<Long> getTop(Window window, int size) {
+
+		tick();
+
+		return topOf(totals.get(window), size);
+	}
+
+	//감쇠 점수 상위 상품번호
+	public synchronized List<Long> getTrending(int size) {
+
+		tick();
+
+		return topOf(scores, size);
+	}
+
+	private <V extends Comparable<V>> List<Long> topOf(Map<Long, V> values, int size) {
+
+		List<Long> result = new ArrayList<>();
+
+		if (values == null) {
+			return result;
+		}
+
+		List<Map.Entry<Long, V>> entries = new ArrayList<>(values.entrySet());
+		entries.sort((a, b) -> {
+			int compare = b.getValue().compareTo(a.getValue());
+			return compare != 0 ? compare : Long.compare(a.getKey(), b.getKey());
+		});
+
+		for (int i = 0; i < entries.size() && i < size; i++) {
+			result.add(entries.get(i).getKey());
+		}
+
+		return result;
+	}
+
+	private void add(Long productno, int count, long minute) {
+
+		if (productno == null || count <= 0) {
+			return;
+		}
+
+		if (minute > currentMinute) {
+			advance(minute);
+		}
+
+		//1주일보다 오래된 판매는 무시
+		if (minute <= currentMinute - RING_MINUTES) {
+			return;
+		}
+
+		int slot = slotOf(minute);
+
+		if (bucketMinutes[slot] != minute) {
+			return;
+		}
+
+		if (buckets[slot] == null) {
+			buckets[slot] = new HashMap<>();
+		}
+		buckets[slot].merge(productno, count, Integer::sum);
+
+		for (Window window : Window.values()) {
+			if (minute > currentMinute - window.minutes) {
+				totals.get(window).merge(productno, (long) count, Long::sum);
+			}
+		}
+
+		addScore(productno, count, minute);
+	}
+
+	//currentMinute 다음 분부터 toMinute 까지 한 분씩 진행
+	//각 창에서 빠져나가는 분의 버킷을 합계에서 빼고, 가장 오래된 버킷 자리는 새 분으로 비움
+	private void advance(long toMinute) {
+
+		if (toMinute - currentMinute > RING_MINUTES) {
+			//1주일 이상 건너뛰면 전부 창 밖이므로 비우고 시작
+			for (int i = 0; i < RING_MINUTES; i++) {
+				buckets[i] = null;
+				bucketMinutes[i] = -1;
+			}
+			for (Map<Long, Long> total : totals.values()) {
+				total.clear();
+			}
+			currentMinute = toMinute - RING_MINUTES;
+		}
+
+		while (currentMinute < toMinute) {
+			currentMinute++;
+
+			for (Window window : Window.values()) {
+				long leaving = currentMinute - window.minutes;
+				int slot = slotOf(leaving);
+
+				if (bucketMinutes[slot] == leaving && buckets[slot] != null) {
+					subtract(totals.get(window), buckets[slot]);
+				}
+			}
+
+			//1주일 전 버킷(같은 자리)을 새 분으로 교체
+			int slot = slotOf(currentMinute);
+			buckets[slot] = null;
+			bucketMinutes[slot] = currentMinute;
+		}
+	}
+
+	private void subtract(Map<Long, Long> total, Map<Long, Integer> bucket) {
+
+		for (Map.Entry<Long, Integer> entry : bucket.entrySet()) {
+			Long left = total.get(entry.getKey());
+
+			if (left == null) {
+				continue;
+			}
+
+			if (left <= entry.getValue()) {
+				total.remove(entry.getKey());
+			} else {
+				total.put(entry.getKey(), left - entry.getValue());
+			}
+		}
+	}
+
+	//forward decay: 판매 시점의 가중치 e^(λ(t - landmark))를 더해두면 모든 점수를 매분 줄이지 않아도 순위가 같음
+	private void addScore(Long productno, int count, long minute) {
+
+		double lambda = Math.log(2) / halfLifeMinutes;
+
+		if (lambda * (minute - landmarkMinute) > MAX_EXPONENT) {
+			//기준 시점을 옮기면서 전체 점수를 같은 비율로 줄임
+			double factor = Math.exp(-lambda * (minute - landmarkMinute));
+			Iterator<Map.Entry<Long, Double>> iterator = scores.entrySet().iterator();
+
+			while (iterator.hasNext()) {
+				Map.Entry<Long, Double> entry = iterator.next();
+				double score = entry.getValue() * factor;
+
+				if (score < MIN_SCORE) {
+					iterator.remove();
+				} else {
+					entry.setValue(score);
+				}
+			}
+			landmarkMinute = minute;
+		}
+
+		scores.merge(productno, count * Math.exp(lambda * (minute - landmarkMinute)), Double::sum);
+	}
+
+	private static int slotOf(long minute) {
+		return (int) Math.floorMod(minute, (long) RING_MINUTES);
+	}
+
+	private static long toMinute(long epochMillis) {
+		return epochMillis / (60 * 1000);
+	}
+
+}
@@ -2,17 +2,14 @@ package com.spring.boot.service;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.List;
 import java.util.Optional;
 
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import com.spring.boot.config.DataNotFoundException;
-import com.spring.boot.dao.OrderListRepository;
 import com.spring.boot.dao.SellerRequestRepository;
 import com.spring.boot.dao.UserRepository;
-import com.spring.boot.model.OrderList;
 import com.spring.boot.model.SellerRequest;
 import com.spring.boot.model.SiteUser;
 import com.spring.boot.model.UserRole;
@@ -25,7 +22,6 @@ public class UserService {
 	
 	private final UserRepository userRepository;
 	private final SellerRequestRepository sellerRequestRepository;
-	private final OrderListRepository orderListRepository;
 	
 	//BCrypt해시 함수 호출
 	private final PasswordEncoder passwordEncoder;
@@ -244,16 +240,14 @@ public class UserService {
 	    }
 	 
 	 //거래후 등급,적립금,페이머니 조정
-	 public int updateAfterOrder(SiteUser user, int point, int payMoney, int amount, int accumulate) {
+	 //orderAmount: 이번 주문내역 금액 합계(누적 구매금액에 더해서 등급 계산, 주문내역 전체를 다시 읽지 않음)
+	 public int updateAfterOrder(SiteUser user, int point, int payMoney, int amount, int orderAmount, int accumulate) {
+		 
+		 userRepository.addPurchaseAmount(user.getId(), orderAmount);
+		 long purchaseAmount = userRepository.findPurchaseAmount(user.getId());
+		 user.setPurchaseAmount(purchaseAmount);
 		 
 		 if(!user.getGrade().equals("P")) {
-			 List<OrderList> lists = orderListRepository.findByUser(user);
-			 
-			 int purchaseAmount = 0;
-			 
-			 for(OrderList orderlist : lists) {
-				 purchaseAmount+=orderlist.getPrice();
-			 }
 			 
 			 if(purchaseAmount>=500000) {
 				 user.setGrade("P");
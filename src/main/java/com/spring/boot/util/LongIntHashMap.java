@@ -0,0 +1,142 @@
+package com.spring.boot.util;
+
+import java.util.Arrays;
+
+//long -> int 해시맵(오픈 어드레싱, 선형 탐사)
+//Long/Integer 박싱과 Entry 객체 없이 배열 두 개만 사용해서 대량 집계(상품 x 상품 동시구매 횟수 등)에 사용
+//키 0은 빈 칸 표시로 쓰므로 별도 필드로 보관, 삭제는 지원하지 않음
+public class LongIntHashMap {
+
+	private static final float LOAD_FACTOR = 0.6f;
+
+	private long[] keys;
+	private int[] values;
+	private int size;
+
+	private boolean hasZeroKey;
+	private int zeroValue;
+
+	public LongIntHashMap() {
+		this(8);
+	}
+
+	public LongIntHashMap(int expectedSize) {
+
+		int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+
+		keys = new long[capacity];
+		values = new int[capacity];
+	}
+
+	public interface Consumer {
+		void accept(long key, int value);
+	}
+
+	public int size() {
+		return size + (hasZeroKey ? 1 : 0);
+	}
+
+	public int get(long key) {
+
+		if (key == 0) {
+			return hasZeroKey ? zeroValue : 0;
+		}
+
+		int mask = keys.length - 1;
+		int slot = hash(key) & mask;
+
+		while (keys[slot] != 0) {
+			if (keys[slot] == key) {
+				return values[slot];
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		return 0;
+	}
+
+	//key의 값에 delta를 더함(없으면 delta로 추가), 더한 뒤 값 반환
+	public int add(long key, int delta) {
+
+		if (key == 0) {
+			hasZeroKey = true;
+			zeroValue += delta;
+			return zeroValue;
+		}
+
+		int mask = keys.length - 1;
+		int slot = hash(key) & mask;
+
+		while (keys[slot] != 0) {
+			if (keys[slot] == key) {
+				values[slot] += delta;
+				return values[slot];
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		keys[slot] = key;
+		values[slot] = delta;
+
+		if (++size > keys.length * LOAD_FACTOR) {
+			resize();
+		}
+
+		return delta;
+	}
+
+	public void forEach(Consumer consumer) {
+
+		if (hasZeroKey) {
+			consumer.accept(0, zeroValue);
+		}
+
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != 0) {
+				consumer.accept(keys[i], values[i]);
+			}
+		}
+	}
+
+	public void clear() {
+
+		Arrays.fill(keys, 0);
+		Arrays.fill(values, 0);
+		size = 0;
+		hasZeroKey = false;
+		zeroValue = 0;
+	}
+
+	private void resize() {
+
+		long[] oldKeys = keys;
+		int[] oldValues = values;
+
+		keys = new long[oldKeys.length << 1];
+		values = new int[oldValues.length << 1];
+
+		int mask = keys.length - 1;
+
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != 0) {
+				int slot = hash(oldKeys[i]) & mask;
+
+				while (keys[slot] != 0) {
+					slot = (slot + 1) & mask;
+				}
+
+				keys[slot] = oldKeys[i];
+				values[slot] = oldValues[i];
+			}
+		}
+	}
+
+	//연속된 id가 같은 칸에 몰리지 않도록 비트를 섞음
+	private static int hash(long key) {
+
+		long h = key * 0x9E3779B97F4A7C15L;
+
+		return (int) (h ^ (h >>> 32));
+	}
+
+}
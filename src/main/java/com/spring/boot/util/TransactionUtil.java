@@ -0,0 +1,56 @@
+package com.spring.boot.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class TransactionUtil {
+
+	//트랜잭션 안이면 커밋된 뒤에 실행(롤백되면 실행 안함), 트랜잭션 밖이면 바로 실행
+	//DB에 반영된 것만 메모리 집계에 반영할 때 사용
+	public static void afterCommit(Runnable task) {
+
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					task.run();
+				}
+			});
+		} else {
+			task.run();
+		}
+	}
+
+	//트랜잭션 안이면 롤백된 뒤에 실행(커밋되면 실행 안함), 트랜잭션 밖이면 실행 안함
+	//트랜잭션 안에서 미리 가져간 메모리 자원(재고 예약 등)을 되돌릴 때 사용
+	public static void afterRollback(Runnable task) {
+
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCompletion(int status) {
+					if (status == STATUS_ROLLED_BACK) {
+						task.run();
+					}
+				}
+			});
+		}
+	}
+
+	//트랜잭션 안이면 커밋/롤백이 끝난 뒤에 실행(afterCommit으로 등록한 것보다 나중), 트랜잭션 밖이면 바로 실행
+	//트랜잭션이 끝날 때까지 기다리는 쪽에 끝났음을 알릴 때 사용
+	public static void afterCompletion(Runnable task) {
+
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCompletion(int status) {
+					task.run();
+				}
+			});
+		} else {
+			task.run();
+		}
+	}
+
+}
@@ -42,5 +42,24 @@ $(document).ready(function(){
 	});
 	
 	
+	//검색어 자동완성(/wewalk/suggest)
+	var keywordInput = $('#keyword');
+	
+	if (keywordInput.length) {
+		$('<datalist id="keywordSuggest"></datalist>').insertAfter(keywordInput);
+		keywordInput.attr('list', 'keywordSuggest').attr('autocomplete', 'off');
+		
+		keywordInput.on('input', function() {
+			$.getJSON('/wewalk/suggest', { q: $(this).val() }, function(list) {
+				var datalist = $('#keywordSuggest').empty();
+				
+				$.each(list, function(i, item) {
+					$('<option>').val(item.keyword).text(item.label).appendTo(datalist);
+				});
+			});
+		});
+	}
+	
+	
 	
 });
\ No newline at end of file
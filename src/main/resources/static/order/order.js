@@ -402,7 +402,7 @@ function requestPay() {
 				            },
 				            error: function (xhr, status, error) {
 						        console.log(xhr.responseText);
-						        alert("error");
+						        alert(xhr.responseJSON && xhr.responseJSON.message ? xhr.responseJSON.message : "error");
 						    }
 			            });
 			            
@@ -451,7 +451,7 @@ function requestPay() {
 			            },
 			            error: function (xhr, status, error) {
 					        console.log(xhr.responseText);
-					        alert("error");
+					        alert(xhr.responseJSON && xhr.responseJSON.message ? xhr.responseJSON.message : "error");
 		
 		   
 					    }
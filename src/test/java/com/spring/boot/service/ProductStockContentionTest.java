@@ -0,0 +1,107 @@
+package com.spring.boot.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+
+import com.spring.boot.config.OutOfStockException;
+import com.spring.boot.dao.ProductRepository;
+import com.spring.boot.dao.UserRepository;
+import com.spring.boot.dto.ItemDataForm;
+import com.spring.boot.model.Product;
+import com.spring.boot.model.SiteUser;
+
+//한 상품(재고 STOCK개)에 여러 스레드가 동시에 1개씩 주문해도 재고보다 많이 팔리지 않는지 확인
+//처리량(초당 주문 시도 수)도 같이 출력
+@SpringBootTest
+class ProductStockContentionTest {
+
+	private static final int STOCK = 100;
+	private static final int THREADS = 16;
+	private static final int ATTEMPTS_PER_THREAD = 50;
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Test
+	void neverOversellsHotProduct() throws Exception {
+
+		List<SiteUser> users = userRepository.findAll(PageRequest.of(0, 1)).getContent();
+		assumeTrue(!users.isEmpty(), "판매자로 쓸 사용자가 없음");
+
+		Product product = Product.builder().category("테스트").pname("재고 동시성 테스트").price(1000).stock(STOCK)
+				.selling(true).build();
+		product.setUser(users.get(0));
+		productRepository.save(product);
+
+		try {
+			ItemDataForm item = new ItemDataForm();
+			item.setId(product.getId());
+			item.setCount(1);
+			List<ItemDataForm> order = Collections.singletonList(item);
+
+			AtomicInteger sold = new AtomicInteger();
+			AtomicInteger rejected = new AtomicInteger();
+			List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+
+			ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+			CountDownLatch start = new CountDownLatch(1);
+
+			for (int t = 0; t < THREADS; t++) {
+				executor.submit(() -> {
+					start.await();
+
+					for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+						try {
+							productService.updateProductStock(order);
+							sold.incrementAndGet();
+						} catch (OutOfStockException e) {
+							rejected.incrementAndGet();
+						} catch (Throwable e) {
+							errors.add(e);
+						}
+					}
+					return null;
+				});
+			}
+
+			long begin = System.nanoTime();
+			start.countDown();
+			executor.shutdown();
+			executor.awaitTermination(2, TimeUnit.MINUTES);
+			double seconds = (System.nanoTime() - begin) / 1e9;
+
+			int attempts = THREADS * ATTEMPTS_PER_THREAD;
+			System.out.printf("재고 %d개, %d스레드 x %d회: 판매 %d, 재고부족 %d, %.1f 주문/초%n", STOCK, THREADS,
+					ATTEMPTS_PER_THREAD, sold.get(), rejected.get(), attempts / seconds);
+
+			assertEquals(Collections.emptyList(), errors);
+			assertEquals(STOCK, sold.get());
+			assertEquals(attempts - STOCK, rejected.get());
+			assertEquals(0, productRepository.findById(product.getId()).get().getStock());
+
+		} finally {
+			productRepository.deleteById(product.getId());
+		}
+	}
+
+}